@@ -0,0 +1,71 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.io.FileNotFoundException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+
+// Default retry policy : exponential backoff with full jitter, throttles start with a longer delay.
+public class BackoffRetryPolicy extends MoveRetryPolicy {
+	private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+	private static final int HTTP_INTERNAL_ERROR = 500;
+	private static final String SLOW_DOWN = "SlowDown";
+	private static final String SERVICE_UNAVAILABLE = "ServiceUnavailable";
+
+	private static final int THROTTLE_DELAY_FACTOR = 10;
+
+	public static boolean isThrottle(AmazonServiceException ase) {
+		if (ase.getStatusCode() == HTTP_SERVICE_UNAVAILABLE) {
+			return true;
+		}
+		String errorCode = ase.getErrorCode();
+		return SLOW_DOWN.equals(errorCode)
+			|| SERVICE_UNAVAILABLE.equals(errorCode)
+			|| RetryUtils.isThrottlingException(ase);
+	}
+
+	@Override
+	public ErrorClass classify(Exception e) {
+		if (e instanceof AmazonServiceException) {
+			AmazonServiceException ase = (AmazonServiceException) e;
+			if (isThrottle(ase)) {
+				return ErrorClass.THROTTLE;
+			}
+			if (ase.getStatusCode() >= HTTP_INTERNAL_ERROR
+				|| RetryUtils.isRetryableServiceException(ase)
+				|| RetryUtils.isClockSkewError(ase)) {
+				return ErrorClass.TRANSIENT;
+			}
+			// NoSuchKey, AccessDenied, InvalidArgument ...
+			return ErrorClass.PERMANENT;
+		} else if (e instanceof AmazonClientException) {
+			return ((AmazonClientException) e).isRetryable() ? ErrorClass.TRANSIENT : ErrorClass.PERMANENT;
+		} else if (e instanceof FileNotFoundException || e instanceof NoSuchFileException || e instanceof AccessDeniedException) {
+			return ErrorClass.PERMANENT;
+		}
+		// network errors (IOException) and anything unknown
+		return ErrorClass.TRANSIENT;
+	}
+
+	@Override
+	protected long getDelay(ErrorClass errorClass, int attempt) {
+		if (errorClass == ErrorClass.THROTTLE) {
+			return fullJitter(baseDelay * THROTTLE_DELAY_FACTOR, maxDelay, attempt);
+		}
+		return fullJitter(baseDelay, maxDelay, attempt);
+	}
+}
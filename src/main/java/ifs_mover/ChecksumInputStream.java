@@ -0,0 +1,254 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Computes MD5 (and CRC32C if asked) of the bytes as they pass from the source to the target,
+// so the data is checked without reading the source again.
+// CRC32C needs Java 9 or later, where it is intrinsified; on Java 8 CRC32 is used instead.
+// mark/reset is supported when the wrapped stream supports it, so the SDK can send a markable body again.
+// The MD5 state is cloned on mark, the CRC can't be cloned, so a new CRC is started on mark
+// and combined with the CRC of the bytes before it.
+public class ChecksumInputStream extends FilterInputStream {
+	private static final Logger logger = LoggerFactory.getLogger(ChecksumInputStream.class);
+
+	private static final String MD5 = "MD5";
+	private static final String CRC32C_CLASS = "java.util.zip.CRC32C";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	// reflected polynomials
+	private static final long CRC32_POLY = 0xedb88320L;
+	private static final long CRC32C_POLY = 0x82f63b78L;
+
+	private static volatile Class<?> crc32cClass;
+	private static volatile boolean isCrcChecked;
+
+	private MessageDigest md5;
+	private Checksum crc;
+	// CRC of the bytes before the mark, crc has the bytes after it
+	private long crcBase;
+	private long crcLength;
+	private MessageDigest markMd5;
+
+	public ChecksumInputStream(InputStream in, boolean isCrc) {
+		super(in);
+		try {
+			md5 = MessageDigest.getInstance(MD5);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		if (isCrc) {
+			crc = newCrc();
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b >= 0) {
+			md5.update((byte) b);
+			if (crc != null) {
+				crc.update(b);
+				crcLength++;
+			}
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = super.read(b, off, len);
+		if (n > 0) {
+			md5.update(b, off, n);
+			if (crc != null) {
+				crc.update(b, off, n);
+				crcLength += n;
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		// skipped bytes would be missing from the checksum
+		byte[] buffer = new byte[(int) Math.min(n, 8192)];
+		long skipped = 0;
+		while (skipped < n) {
+			int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+			if (read < 0) {
+				break;
+			}
+			skipped += read;
+		}
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return in.markSupported();
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		try {
+			markMd5 = (MessageDigest) md5.clone();
+		} catch (CloneNotSupportedException e) {
+			logger.warn("MD5 can't be cloned, the stream can't be reset : {}", e.getMessage());
+			markMd5 = null;
+			return;
+		}
+		if (crc != null) {
+			crcBase = getCrc();
+			crc.reset();
+			crcLength = 0;
+		}
+		in.mark(readlimit);
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		if (markMd5 == null) {
+			throw new IOException("mark/reset not supported");
+		}
+		in.reset();
+		try {
+			md5 = (MessageDigest) markMd5.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IOException(e);
+		}
+		if (crc != null) {
+			crc.reset();
+			crcLength = 0;
+		}
+	}
+
+	// call once, after the stream is read to the end
+	public byte[] getMd5() {
+		return md5.digest();
+	}
+
+	public boolean isCrc() {
+		return crc != null;
+	}
+
+	public long getCrc() {
+		if (crc == null) {
+			return 0;
+		}
+		return combineCrc(crcBase, crc.getValue(), crcLength, crc instanceof CRC32 ? CRC32_POLY : CRC32C_POLY);
+	}
+
+	// CRC of A followed by B from the CRCs of A and B and the length of B (crc32_combine of zlib)
+	static long combineCrc(long crc1, long crc2, long length2, long poly) {
+		if (length2 <= 0) {
+			return crc1;
+		}
+
+		long[] even = new long[32];
+		long[] odd = new long[32];
+		// operator for one zero bit
+		odd[0] = poly;
+		long row = 1;
+		for (int n = 1; n < 32; n++) {
+			odd[n] = row;
+			row <<= 1;
+		}
+		// operators for two and four zero bits
+		gf2MatrixSquare(even, odd);
+		gf2MatrixSquare(odd, even);
+
+		// apply length2 zero bytes to crc1, one byte is the first square
+		do {
+			gf2MatrixSquare(even, odd);
+			if ((length2 & 1) != 0) {
+				crc1 = gf2MatrixTimes(even, crc1);
+			}
+			length2 >>= 1;
+			if (length2 == 0) {
+				break;
+			}
+			gf2MatrixSquare(odd, even);
+			if ((length2 & 1) != 0) {
+				crc1 = gf2MatrixTimes(odd, crc1);
+			}
+			length2 >>= 1;
+		} while (length2 != 0);
+
+		return crc1 ^ crc2;
+	}
+
+	private static long gf2MatrixTimes(long[] matrix, long vector) {
+		long sum = 0;
+		for (int i = 0; vector != 0; i++, vector >>>= 1) {
+			if ((vector & 1) != 0) {
+				sum ^= matrix[i];
+			}
+		}
+		return sum;
+	}
+
+	private static void gf2MatrixSquare(long[] square, long[] matrix) {
+		for (int n = 0; n < 32; n++) {
+			square[n] = gf2MatrixTimes(matrix, matrix[n]);
+		}
+	}
+
+	public static String getCrcName() {
+		return getCrc32cClass() != null ? "crc32c" : "crc32";
+	}
+
+	public static Checksum newCrc() {
+		Class<?> clazz = getCrc32cClass();
+		if (clazz != null) {
+			try {
+				return (Checksum) clazz.getDeclaredConstructor().newInstance();
+			} catch (Exception e) {
+				logger.warn("failed to create CRC32C : {}", e.getMessage());
+			}
+		}
+		return new CRC32();
+	}
+
+	private static Class<?> getCrc32cClass() {
+		if (!isCrcChecked) {
+			synchronized (ChecksumInputStream.class) {
+				if (!isCrcChecked) {
+					try {
+						crc32cClass = Class.forName(CRC32C_CLASS);
+					} catch (ClassNotFoundException e) {
+						logger.warn("CRC32C needs Java 9 or later, use CRC32. ({})", System.getProperty("java.version"));
+					}
+					isCrcChecked = true;
+				}
+			}
+		}
+		return crc32cClass;
+	}
+
+	public static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,233 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+// Limits the number of Movers of one lane that move objects at the same time.
+// The limit grows by one every interval and is halved when the target throttles (AIMD).
+// When the latency per MB goes up without more throughput the limit is held.
+// Waiting Movers park on a lock rather than a monitor so virtual threads do not pin their carrier.
+// An object holds its permit through a Lease, which is given back while the object backs off before a retry.
+public class ConcurrencyController implements Runnable {
+	private static final Logger logger = LoggerFactory.getLogger(ConcurrencyController.class);
+
+	private static final double DECREASE_FACTOR = 0.5;
+	private static final double LATENCY_FACTOR = 2.0;
+	private static final double THROUGHPUT_GAIN = 1.05;
+	private static final long UNIT_M = 1024 * 1024;
+	private static final long MICROS = 1000;
+
+	private String jobId;
+	private String name;
+	private int minCount;
+	private int maxCount;
+	private long interval;
+	private int limit;
+	private int active;
+	private volatile boolean isStop;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+
+	private AtomicLong movedBytes = new AtomicLong(0);
+	private AtomicLong movedCount = new AtomicLong(0);
+	private AtomicLong latencySum = new AtomicLong(0);
+	private AtomicLong throttleCount = new AtomicLong(0);
+
+	private double lastThroughput;
+	private double minLatency;
+
+	public ConcurrencyController(String jobId, String name, int minCount, int maxCount, int initCount, long interval) {
+		this.jobId = jobId;
+		this.name = name;
+		this.minCount = Math.max(1, minCount);
+		this.maxCount = Math.max(this.minCount, maxCount);
+		this.limit = Math.min(this.maxCount, Math.max(this.minCount, initCount));
+		this.interval = interval;
+		this.active = 0;
+		this.isStop = false;
+		this.lastThroughput = 0;
+		this.minLatency = 0;
+	}
+
+	public void acquire() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (active >= limit) {
+				available.await();
+			}
+			active++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void acquireUninterruptibly() {
+		lock.lock();
+		try {
+			while (active >= limit) {
+				available.awaitUninterruptibly();
+			}
+			active++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void release() {
+		lock.lock();
+		try {
+			active--;
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public Lease lease() throws InterruptedException {
+		acquire();
+		return new Lease();
+	}
+
+	// the permit of one object, its parts may back off at the same time on other threads.
+	// The permit is given back when the first of them starts sleeping and taken again when the last one wakes up.
+	public class Lease {
+		private final ReentrantLock leaseLock = new ReentrantLock();
+		private int sleepers;
+		private boolean isHeld = true;
+		private boolean isClosed;
+
+		public void sleep(long millis) throws InterruptedException {
+			leaseLock.lock();
+			try {
+				if (sleepers++ == 0 && isHeld) {
+					release();
+					isHeld = false;
+				}
+			} finally {
+				leaseLock.unlock();
+			}
+
+			try {
+				Thread.sleep(millis);
+			} finally {
+				leaseLock.lock();
+				try {
+					if (--sleepers == 0 && !isHeld && !isClosed) {
+						acquireUninterruptibly();
+						isHeld = true;
+					}
+				} finally {
+					leaseLock.unlock();
+				}
+			}
+		}
+
+		public void close() {
+			leaseLock.lock();
+			try {
+				if (isHeld) {
+					release();
+					isHeld = false;
+				}
+				isClosed = true;
+			} finally {
+				leaseLock.unlock();
+			}
+		}
+	}
+
+	// the latency is kept per MB, an object below 1 MB counts as 1 MB since its time is mostly the request
+	public void onMoved(long size, long latency) {
+		movedBytes.addAndGet(size);
+		movedCount.incrementAndGet();
+		latencySum.addAndGet(latency * MICROS * UNIT_M / Math.max(size, UNIT_M));
+	}
+
+	public void onThrottle() {
+		throttleCount.incrementAndGet();
+	}
+
+	public int getLimit() {
+		lock.lock();
+		try {
+			return limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void stop() {
+		isStop = true;
+	}
+
+	@Override
+	public void run() {
+		MDC.put("logFileName", "ifs_mover." + jobId + ".log");
+		logger.info("concurrency controller {} : min {}, max {}, start {}", name, minCount, maxCount, getLimit());
+		try {
+			while (!isStop) {
+				Thread.sleep(interval);
+				adjust();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			MDC.remove("logFileName");
+		}
+	}
+
+	private void adjust() {
+		long bytes = movedBytes.getAndSet(0);
+		long count = movedCount.getAndSet(0);
+		long latency = latencySum.getAndSet(0);
+		long throttles = throttleCount.getAndSet(0);
+
+		double throughput = (double) bytes / UNIT_M / ((double) interval / 1000);
+		double avgLatency = count > 0 ? (double) latency / MICROS / count : 0;
+		if (count > 0 && (minLatency == 0 || avgLatency < minLatency)) {
+			minLatency = avgLatency;
+		}
+
+		lock.lock();
+		try {
+			int oldLimit = limit;
+			String reason;
+			if (throttles > 0) {
+				limit = Math.max(minCount, (int) (limit * DECREASE_FACTOR));
+				reason = "throttled";
+			} else if (count == 0) {
+				reason = "idle";
+			} else if (avgLatency > minLatency * LATENCY_FACTOR && throughput < lastThroughput * THROUGHPUT_GAIN) {
+				reason = "latency";
+			} else {
+				limit = Math.min(maxCount, limit + 1);
+				reason = "increase";
+			}
+			available.signalAll();
+			logger.info("concurrency {} : {} MB/s, {} objects, latency {} ms/MB (min {} ms/MB), throttled {}, {} : {} -> {}",
+				name, String.format("%.2f", throughput), count, String.format("%.1f", avgLatency), String.format("%.1f", minLatency), throttles, reason, oldLimit, limit);
+		} finally {
+			lock.unlock();
+		}
+
+		if (count > 0) {
+			lastThroughput = throughput;
+		}
+	}
+}
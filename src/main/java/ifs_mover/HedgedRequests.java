@@ -0,0 +1,248 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+// Sends a request again when it is slower than the recent ones (hedge_percentile x hedge_multiplier)
+// and takes the one that answers first. A request stuck on a sick node then costs a few seconds,
+// not the socket timeout. At most hedge_max_rate percent of the requests are hedged.
+// The request runs on a pool thread and the caller waits for it, the request must be safe to send twice.
+public class HedgedRequests {
+	private static final Logger logger = LoggerFactory.getLogger(HedgedRequests.class);
+
+	public interface Discard<T> {
+		// the result of the request that finished last
+		void discard(T result);
+	}
+
+	private static final int SAMPLE_COUNT = 1000;
+	// no hedge until this many requests are measured
+	private static final int MIN_SAMPLES = 20;
+	// the threshold is sorted again after this many samples
+	private static final int SORT_INTERVAL = 100;
+	private static final long MIN_DELAY = 50;
+
+	private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "hedge");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final String name;
+	private final int percentile;
+	private final int multiplier;
+	private final int maxRate;
+
+	private final long[] samples = new long[SAMPLE_COUNT];
+	private int sampleIndex;
+	private int sampleCount;
+	private int unsortedCount;
+	private long threshold = -1;
+
+	private AtomicLong requestCount = new AtomicLong(0);
+	private AtomicLong hedgeCount = new AtomicLong(0);
+	private AtomicLong hedgeWinCount = new AtomicLong(0);
+
+	private static class LostRequestException extends IOException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	// The bodies of the attempts of one request. When the request is over the bodies are closed,
+	// an attempt still running can't read any more from a buffer that is given to another part.
+	public static class BodyGuard {
+		private boolean isClosed;
+
+		public synchronized void close() {
+			isClosed = true;
+		}
+
+		public InputStream wrap(InputStream in) {
+			return new GuardedInputStream(in);
+		}
+
+		private class GuardedInputStream extends FilterInputStream {
+			GuardedInputStream(InputStream in) {
+				super(in);
+			}
+
+			private void check() throws IOException {
+				if (isClosed) {
+					throw new IOException("the hedged request is over");
+				}
+			}
+
+			@Override
+			public int read() throws IOException {
+				synchronized (BodyGuard.this) {
+					check();
+					return super.read();
+				}
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				synchronized (BodyGuard.this) {
+					check();
+					return super.read(b, off, len);
+				}
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				synchronized (BodyGuard.this) {
+					check();
+					return super.skip(n);
+				}
+			}
+		}
+	}
+
+	public HedgedRequests(String name, int percentile, int multiplier, int maxRate) {
+		this.name = name;
+		this.percentile = Math.max(1, Math.min(100, percentile));
+		this.multiplier = Math.max(1, multiplier);
+		this.maxRate = maxRate;
+	}
+
+	public <T> T call(Callable<T> request, Discard<T> discard) throws Exception {
+		long delay = getDelay();
+		requestCount.incrementAndGet();
+		if (delay < 0) {
+			long start = System.currentTimeMillis();
+			T result = request.call();
+			onResponse(System.currentTimeMillis() - start);
+			return result;
+		}
+
+		AtomicBoolean isDone = new AtomicBoolean(false);
+		CompletionService<T> completion = new ExecutorCompletionService<T>(executor);
+		List<Future<T>> futures = new ArrayList<Future<T>>();
+		try {
+			futures.add(completion.submit(attempt(request, isDone, discard, false)));
+			Future<T> future = completion.poll(delay, TimeUnit.MILLISECONDS);
+			if (future == null && takeHedge()) {
+				logger.debug("{} : hedge a request slower than {} ms", name, delay);
+				futures.add(completion.submit(attempt(request, isDone, discard, true)));
+			}
+
+			Exception error = null;
+			for (int pending = futures.size(); pending > 0; pending--) {
+				if (future == null) {
+					future = completion.take();
+				}
+				try {
+					return future.get();
+				} catch (ExecutionException e) {
+					if (!(e.getCause() instanceof LostRequestException) && error == null) {
+						error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+					}
+				}
+				future = null;
+			}
+			throw error;
+		} finally {
+			for (Future<T> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	// the first request that succeeds wins, a later one is discarded
+	private <T> Callable<T> attempt(final Callable<T> request, final AtomicBoolean isDone, final Discard<T> discard, final boolean isHedge) {
+		final String logFileName = MDC.get("logFileName");
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				if (logFileName != null) {
+					MDC.put("logFileName", logFileName);
+				}
+				try {
+					long start = System.currentTimeMillis();
+					T result = request.call();
+					if (isDone.getAndSet(true)) {
+						if (discard != null) {
+							discard.discard(result);
+						}
+						throw new LostRequestException();
+					}
+					onResponse(System.currentTimeMillis() - start);
+					if (isHedge) {
+						hedgeWinCount.incrementAndGet();
+					}
+					return result;
+				} finally {
+					MDC.remove("logFileName");
+				}
+			}
+		};
+	}
+
+	private boolean takeHedge() {
+		if (hedgeCount.incrementAndGet() * 100 <= requestCount.get() * maxRate) {
+			return true;
+		}
+		hedgeCount.decrementAndGet();
+		return false;
+	}
+
+	private synchronized void onResponse(long millis) {
+		samples[sampleIndex] = millis;
+		sampleIndex = (sampleIndex + 1) % SAMPLE_COUNT;
+		if (sampleCount < SAMPLE_COUNT) {
+			sampleCount++;
+		}
+		if (++unsortedCount >= SORT_INTERVAL || (threshold < 0 && sampleCount >= MIN_SAMPLES)) {
+			long[] sorted = Arrays.copyOf(samples, sampleCount);
+			Arrays.sort(sorted);
+			int index = (int) Math.min(sampleCount - 1, (long) sampleCount * percentile / 100);
+			threshold = sorted[index];
+			unsortedCount = 0;
+		}
+	}
+
+	// ms to wait before the request is sent again, -1 if there are not enough samples yet
+	private synchronized long getDelay() {
+		if (threshold < 0) {
+			return -1;
+		}
+		return Math.max(MIN_DELAY, threshold * multiplier);
+	}
+
+	public void logStats() {
+		logger.info("{} : {} requests, {} hedged, {} answered first by the hedge, threshold {} ms",
+			name, requestCount.get(), hedgeCount.get(), hedgeWinCount.get(), getDelay());
+	}
+}
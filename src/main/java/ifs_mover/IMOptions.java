@@ -22,7 +22,7 @@ import org.apache.commons.cli.ParseException;
 
 public class IMOptions {
 	public enum WORK_TYPE {
-		UNKNOWN, MOVE, COMPLETE, STOP, REMOVE, RERUN, STATUS, RERUN_MOVE, CHECK, ERROR
+		UNKNOWN, MOVE, COMPLETE, STOP, REMOVE, RERUN, STATUS, RERUN_MOVE, CHECK, ERROR, SWEEP
 	}
 	
 	private String[] args;
@@ -43,6 +43,7 @@ public class IMOptions {
 	private boolean isStopId;
 	private boolean isRemoveId;
 	private boolean isRerunId;
+	private boolean isSweepId;
 	private boolean isStatus;
 	private boolean isJobId;
 	private boolean isSrcBucketName;
@@ -56,6 +57,7 @@ public class IMOptions {
 	private String stopId;
 	private String removeId;
 	private String rerunId;
+	private String sweepId;
 	private int threadCount;
 	private String jobId;
 	private String srcBucketName;
@@ -81,6 +83,7 @@ public class IMOptions {
 		stopId = "";
 		removeId = "";
 		rerunId = "";
+		sweepId = "";
 		threadCount = 0;
 		
 		isType = false;
@@ -93,6 +96,7 @@ public class IMOptions {
 		isStopId = false;
 		isRemoveId = false;
 		isRerunId = false;
+		isSweepId = false;
 		isStatus = false;
 	}
 	
@@ -112,6 +116,12 @@ public class IMOptions {
 				return;
 			}
 			
+			targetConfig.configure();
+			if (!checkTargetConfig()) {
+				printUsage();
+			}
+		} else if (workType == WORK_TYPE.SWEEP) {
+			targetConfig = new Config(targetConfPath);
 			targetConfig.configure();
 			if (!checkTargetConfig()) {
 				printUsage();
@@ -129,6 +139,7 @@ public class IMOptions {
 		Option stop = Option.builder(null).longOpt("jobstop").hasArg(true).required(false).build();
 		Option remove = Option.builder(null).longOpt("jobremove").hasArg(true).required(false).build();
 		Option rerun = Option.builder(null).longOpt("rerun").hasArg(true).required(false).build();
+		Option sweep = Option.builder(null).longOpt("sweep").hasArg(true).required(false).build();
 		Option check = Option.builder(null).longOpt("check").hasArg(false).required(false).build();
 		Option status = Option.builder(null).longOpt("status").hasArg(false).required(false).build();
 		Option jobid = Option.builder(null).longOpt("jobid").hasArg(true).required(false).build();
@@ -145,6 +156,7 @@ public class IMOptions {
 		options.addOption(stop);
 		options.addOption(remove);
 		options.addOption(rerun);
+		options.addOption(sweep);
 		options.addOption(check);
 		options.addOption(status);
 		options.addOption(jobid);
@@ -227,6 +239,11 @@ public class IMOptions {
 			rerunId = line.getOptionValue("rerun");
 		}
 		
+		isSweepId = line.hasOption("sweep");
+		if (isSweepId) {
+			sweepId = line.getOptionValue("sweep");
+		}
+
 		isStatus = line.hasOption("status");
 		
 		if (isType && isSourceConfPath && isTargetconfPath) {
@@ -246,6 +263,12 @@ public class IMOptions {
 			} else {
 				workType = WORK_TYPE.RERUN;
 			}
+		} else if (isSweepId && isTargetconfPath) {
+			if (isType || isSourceConfPath || isStopId || isRemoveId || isRerunId || isStatus || isCheck) {
+				printUsage();
+			} else {
+				workType = WORK_TYPE.SWEEP;
+			}
 		} else if (isStopId || isRemoveId || isStatus) {
 			if (isStopId && !isRemoveId && !isStatus) {
 				workType = WORK_TYPE.STOP;
@@ -312,6 +335,11 @@ public class IMOptions {
 		System.out.println("\t" + String.format("%-20s\t%s", "-thread=", "thread count"));
 		System.out.println("\t" + String.format("%-20s\t%s", "-f=file", "inventory file path"));
 		
+		System.out.println("Sweep Uploads");
+		System.out.println("\t" + String.format("%-20s\t%s", "-sweep=jobid", "abort stale multipart uploads under the target prefix"));
+		System.out.println("\t" + String.format("%-20s\t%s", "", "(older than stale_upload_hours), except the ones the job can resume"));
+		System.out.println("\t" + String.format("%-20s\t%s", "-target=target.conf", "target configuration file path"));
+		
 		System.out.println("Check");
 		System.out.println("\t" + String.format("%-20s\t%s", "-check", "check source and target configuration"));
 		System.out.println("\t" + String.format("%-20s\t%s", "-t=file|s3|swift","source type, FILE(NAS) or S3 or SWIFT"));
@@ -497,6 +525,10 @@ public class IMOptions {
 		return rerunId;
 	}
 
+	public String getSweepId() {
+		return sweepId;
+	}
+
 	public String getSourceConfPath() {
 		return sourceConfPath;
 	}
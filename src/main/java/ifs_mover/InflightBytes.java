@@ -0,0 +1,87 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Bytes in flight in the whole process, shared by all threads (inflight_limit).
+// Object and part moves take the bytes they move before the source stream is opened,
+// listings take an estimate of a listing page until it is in the DB.
+// A request larger than the limit takes the whole limit, so it still runs, alone.
+public class InflightBytes {
+	private static final Logger logger = LoggerFactory.getLogger(InflightBytes.class);
+
+	// a permit is 1KB, so that a semaphore can hold terabytes
+	private static final long PERMIT_SIZE = 1024;
+	// a listed key in memory, with its summary
+	private static final long LISTED_KEY_SIZE = 512;
+
+	private final long limit;
+	private final int maxPermits;
+	private final Semaphore permits;
+	private final AtomicLong used = new AtomicLong(0);
+
+	public static InflightBytes getInstance() {
+		return LazyHolder.INSTANCE;
+	}
+
+	private static class LazyHolder {
+		private static final InflightBytes INSTANCE = new InflightBytes(MoverConfig.getInstance());
+	}
+
+	private InflightBytes(MoverConfig moverConfig) {
+		limit = moverConfig.getInflightLimit();
+		maxPermits = (int) Math.min(Integer.MAX_VALUE, limit / PERMIT_SIZE);
+		permits = maxPermits > 0 ? new Semaphore(maxPermits, true) : null;
+		if (permits != null) {
+			logger.info("in-flight bytes limit : {} MB (max heap {} MB)", limit / (1024 * 1024), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+		}
+	}
+
+	public boolean isEnabled() {
+		return permits != null;
+	}
+
+	// waits until the bytes are free, returns the permits to give back to release
+	public int acquire(long bytes) throws InterruptedException {
+		if (permits == null || bytes <= 0) {
+			return 0;
+		}
+		int count = (int) Math.min(maxPermits, Math.max(1, (bytes + PERMIT_SIZE - 1) / PERMIT_SIZE));
+		permits.acquire(count);
+		used.addAndGet(count * PERMIT_SIZE);
+		return count;
+	}
+
+	public int acquireListing(int keyCount) throws InterruptedException {
+		return acquire(keyCount * LISTED_KEY_SIZE);
+	}
+
+	public void release(int count) {
+		if (count > 0) {
+			used.addAndGet(-count * PERMIT_SIZE);
+			permits.release(count);
+		}
+	}
+
+	public long getUsed() {
+		return used.get();
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+}
@@ -0,0 +1,56 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.util.TreeMap;
+
+// The highest sequence of the object table below which every row is committed, while the source is listed.
+// The listing inserts run at once and take their AUTO_INCREMENT sequences before they commit,
+// so a row can show up after rows with higher sequences, and a failed insert leaves a gap for good.
+// An insert notes the highest sequence read from the table before it starts, all its rows are above it.
+// The rows up to the lowest of these marks, and up to the highest sequence read, are committed.
+public class ListWatermark {
+	// the mark of each running insert, with the number of inserts that have it
+	private static final TreeMap<Long, Integer> marks = new TreeMap<Long, Integer>();
+	private static long lastMaxSequence;
+
+	private ListWatermark() {
+	}
+
+	public static synchronized long begin() {
+		long mark = lastMaxSequence;
+		Integer count = marks.get(mark);
+		marks.put(mark, count == null ? 1 : count + 1);
+		return mark;
+	}
+
+	public static synchronized void end(long mark) {
+		Integer count = marks.get(mark);
+		if (count == null) {
+			return;
+		}
+		if (count == 1) {
+			marks.remove(mark);
+		} else {
+			marks.put(mark, count - 1);
+		}
+	}
+
+	// maxSequence must be read before the call, an insert that starts later takes sequences above it
+	public static synchronized long get(long maxSequence) {
+		lastMaxSequence = Math.max(lastMaxSequence, maxSequence);
+		if (marks.isEmpty()) {
+			return maxSequence;
+		}
+		return Math.min(maxSequence, marks.firstKey());
+	}
+}
@@ -16,7 +16,9 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -27,7 +29,9 @@ import com.amazonaws.services.s3.internal.SkipMd5CheckStrategy;
 import com.google.common.base.Strings;
 
 import ifs_mover.db.MariaDB;
+import ifs_mover.repository.IfsS3;
 import ifs_mover.repository.Repository;
+import ifs_mover.repository.RepositoryFactory;
 
 public class Main {
 	private final static String VERSION = "0.3.0";
@@ -59,12 +63,16 @@ public class Main {
 	private static final String FAILED = "Failed";
 	private static final String SKIPPED = "Skipped";
 	private static final String DELETED = "Deleted";
+	private static final String INFLIGHT = "In-flight";
+	private static final String RETRIES = "Retries";
 	private static final String FORMAT_START = "%-5s\t%-15s%22s";
 	private static final String FORMAT_START_END = "%-5s\t%-15s%22s - %s";
 	private static final String FORMAT_G = "%-10s : %,14d/ %,10.2fG";
 	private static final String FORMAT_M = "%-10s : %,14d/ %,10.2fM";
 	private static final String FORMAT_K = "%-10s : %,14d/ %,10.2fK";
 	private static final String FORMAT_B = "%-10s : %,14d/ %,10dB";
+	private static final String FORMAT_INFLIGHT = "%-10s : %,13.2fM/ %,10.2fM";
+	private static final String FORMAT_RETRIES = "%-10s : throttle %,d, transient %,d / failed after retry : throttle %,d, transient %,d, permanent %,d";
 
 	public static void main(String[] args) {
 		if (args.length == 1) {
@@ -128,6 +136,7 @@ public class Main {
 			logger.info("create jobid table ...");
 			Utils.getDBInstance().createMoveObjectTable(jobId);
 			Utils.getDBInstance().createTargetObjectTable(jobId);
+			Utils.getDBInstance().createUploadTable(jobId);
 			
 			MDC.put("logFileName", "ifs_mover." + jobId + ".log");
 			logger.info("IFS_MOVER({}) MOVE START", pid);
@@ -183,6 +192,7 @@ public class Main {
 				Utils.getDBInstance().dropRerunObjectIndex(jobId);
 				Utils.getDBInstance().dropRerunObjectTable(jobId);
 			}
+			Utils.getDBInstance().dropUploadTable(jobId);
 			Utils.getDBInstance().updateJobState(jobId, type);
 			logger.info(IFS_MOVER_END, pid);
 			break;
@@ -228,6 +238,8 @@ public class Main {
 					}
 				}
 				Utils.getDBInstance().createRerunObjectTable(jobId);
+				// jobs made by older versions have no upload table
+				Utils.getDBInstance().createUploadTable(jobId);
 			} else {
 				logger.error("check job_id({}) : There is no move table.", jobId);
 				System.exit(-1);
@@ -257,6 +269,25 @@ public class Main {
 			logger.info("IFS_MOVER({}) RERUN END", pid);
 			break;
 			
+		case SWEEP:
+			jobId = options.getSweepId();
+
+			MDC.put("logFileName", "ifs_mover." + jobId + ".log");
+			logger.info("IFS_MOVER({}) SWEEP START", pid);
+			IfsS3 sweepTarget = new RepositoryFactory().getTargetRepository(jobId);
+			sweepTarget.setConfig(options.getTargetConfig(), false);
+			if (sweepTarget.check(Repository.S3) != Repository.NO_ERROR) {
+				System.out.println("Error : " + sweepTarget.getErrMessage());
+				System.exit(-1);
+			}
+
+			// uploads recorded in the job can still be resumed by a rerun
+			Date before = new Date(System.currentTimeMillis() - config.getStaleUploadHours() * 3600L * 1000L);
+			int abortCount = sweepTarget.abortStaleUploads(new HashSet<String>(Utils.getDBInstance().getUploadIds(jobId)), before);
+			System.out.println("Aborted " + abortCount + " multipart uploads.");
+			logger.info("IFS_MOVER({}) SWEEP END, aborted {} uploads", pid, abortCount);
+			break;
+
 		case STATUS:
 			status(options.getJobId(), options.getSrcBucketName(), options.getDstBucketName());
 			
@@ -573,6 +604,25 @@ public class Main {
 						}
 					}
 				}
+
+				// bytes moving now and inflight_limit
+				Object inflightLimit = info.get(MariaDB.JOB_TABLE_COLUMN_INFLIGHT_LIMIT);
+				if ((jobState == STATE_MOVE || jobState == STATE_RERUN_MOVE) && inflightLimit != null && (long) inflightLimit > 0) {
+					long inflightBytes = (long) info.get(MariaDB.JOB_TABLE_COLUMN_INFLIGHT_BYTES);
+					System.out.println(String.format(FORMAT_INFLIGHT, INFLIGHT, (double) inflightBytes / UNIT_M, (double) (long) inflightLimit / UNIT_M));
+				}
+
+				// retries and failures after retry by error class
+				Object throttleRetries = info.get(MariaDB.JOB_TABLE_COLUMN_THROTTLE_RETRIES);
+				if (throttleRetries != null) {
+					long transientRetries = (long) info.get(MariaDB.JOB_TABLE_COLUMN_TRANSIENT_RETRIES);
+					long throttleFailures = (long) info.get(MariaDB.JOB_TABLE_COLUMN_THROTTLE_FAILURES);
+					long transientFailures = (long) info.get(MariaDB.JOB_TABLE_COLUMN_TRANSIENT_FAILURES);
+					long permanentFailures = (long) info.get(MariaDB.JOB_TABLE_COLUMN_PERMANENT_FAILURES);
+					if ((long) throttleRetries + transientRetries + throttleFailures + transientFailures + permanentFailures > 0) {
+						System.out.println(String.format(FORMAT_RETRIES, RETRIES, (long) throttleRetries, transientRetries, throttleFailures, transientFailures, permanentFailures));
+					}
+				}
 			} 
 			System.out.println();
 		}
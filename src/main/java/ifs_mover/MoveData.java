@@ -22,6 +22,7 @@ public class MoveData {
     private String multiPartInfo;
     private int objectState;
     private String mTime;
+    private long sequence;
 
     public boolean isDelete() {
         return isDelete;
@@ -89,4 +90,10 @@ public class MoveData {
     public void setmTime(String mTime) {
         this.mTime = mTime;
     }
+    public long getSequence() {
+        return sequence;
+    }
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
 }
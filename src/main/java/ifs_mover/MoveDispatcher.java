@@ -0,0 +1,339 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+// Reads the object table page by page and hands the pages to whichever Mover is idle,
+// in chunks of at most CHUNK_ROWS rows and CHUNK_BYTES bytes, so the last pages don't leave one
+// Mover with a long list while the others are idle. Only a few pages are read ahead of the Movers.
+// Until the job's list_complete flag is set the listing may still be adding rows, so the
+// dispatcher waits for new rows instead of finishing, and reads only up to the ListWatermark.
+// With size lanes, each page is split by object size and every lane has its own queue.
+// A lane that is not keeping up gets no more rows in its queue, its rows are held back here
+// while the other lanes keep getting pages.
+// With move_order (size or mtime, descending) or long_tail_size, the whole list is read in that order
+// once the listing is complete. Objects of long_tail_size and larger go first, largest first,
+// so that a huge object listed last does not run alone at the end of the job.
+public class MoveDispatcher implements Runnable {
+	private static final Logger logger = LoggerFactory.getLogger(MoveDispatcher.class);
+
+	public static final int LANE_SMALL = 0;
+	public static final int LANE_MEDIUM = 1;
+	public static final int LANE_HUGE = 2;
+	public static final String[] LANE_NAMES = {"small", "medium", "huge"};
+
+	private static final long POLL_INTERVAL = 1000;
+	private static final long WAIT_INTERVAL = 100;
+	// a lane that is not keeping up must not hold the whole table in memory,
+	// at most this many rows in its queue and this many held back
+	private static final long MAX_LANE_ROWS = 100000;
+	private static final int CHUNK_ROWS = 100;
+	// an object of this size or larger is a chunk of its own
+	private static final long CHUNK_BYTES = 1024L * 1024 * 1024;
+
+	private String jobId;
+	private boolean isRerun;
+	private int limit;
+	private int prefetchCount;
+	private long smallSize;
+	private long hugeSize;
+	private List<BlockingQueue<List<MoveData>>> lanes;
+	private List<AtomicLong> laneRows;
+	// rows of the full lanes, only the dispatcher thread uses them
+	private List<List<MoveData>> heldRows;
+	private volatile boolean isDone;
+	private String order = MoverConfig.MOVE_ORDER_SEQUENCE;
+	private long longTailSize;
+
+	public MoveDispatcher(String jobId, boolean isRerun, int limit, int prefetchCount) {
+		this(jobId, isRerun, limit, prefetchCount, 1, 0, 0);
+	}
+
+	public MoveDispatcher(String jobId, boolean isRerun, int limit, int prefetchCount, long smallSize, long hugeSize) {
+		this(jobId, isRerun, limit, prefetchCount, 3, smallSize, hugeSize);
+	}
+
+	private MoveDispatcher(String jobId, boolean isRerun, int limit, int prefetchCount, int laneCount, long smallSize, long hugeSize) {
+		this.jobId = jobId;
+		this.isRerun = isRerun;
+		this.limit = limit;
+		this.prefetchCount = prefetchCount;
+		this.smallSize = smallSize;
+		this.hugeSize = hugeSize;
+		this.lanes = new ArrayList<BlockingQueue<List<MoveData>>>();
+		this.laneRows = new ArrayList<AtomicLong>();
+		this.heldRows = new ArrayList<List<MoveData>>();
+		for (int i = 0; i < laneCount; i++) {
+			lanes.add(new LinkedBlockingQueue<List<MoveData>>());
+			laneRows.add(new AtomicLong(0));
+			heldRows.add(new ArrayList<MoveData>());
+		}
+		this.isDone = false;
+	}
+
+	public int getLaneCount() {
+		return lanes.size();
+	}
+
+	public void setOrder(String order, long longTailSize) {
+		this.order = order;
+		this.longTailSize = longTailSize;
+	}
+
+	private boolean isOrdered() {
+		return !MoverConfig.MOVE_ORDER_SEQUENCE.equals(order) || longTailSize > 0;
+	}
+
+	@Override
+	public void run() {
+		try {
+			MDC.clear();
+			MDC.put("logFileName", "ifs_mover." + jobId + ".log");
+
+			if (isOrdered()) {
+				runOrdered();
+				return;
+			}
+
+			long sequence = 0;
+			while (true) {
+				if (!isHungry()) {
+					Thread.sleep(WAIT_INTERVAL);
+					continue;
+				}
+
+				// read the flag first, every row is committed once it is set
+				boolean isListComplete = Utils.getDBInstance().isJobListComplete(jobId);
+				long maxSequence = 0;
+				if (!isRerun) {
+					maxSequence = Utils.getDBInstance().getMaxSequence(jobId);
+				} else {
+					maxSequence = Utils.getDBInstance().getMaxSequenceRerun(jobId);
+				}
+				if (!isListComplete) {
+					// the rows above the watermark may still be committed, the gaps below it are for good
+					maxSequence = ListWatermark.get(maxSequence);
+				}
+
+				if (sequence >= maxSequence) {
+					if (isListComplete) {
+						break;
+					}
+					Thread.sleep(POLL_INTERVAL);
+					continue;
+				}
+
+				long count = Math.min(limit, maxSequence - sequence);
+				long start = System.currentTimeMillis();
+				List<MoveData> moveList = null;
+				if (!isRerun) {
+					moveList = Utils.getDBInstance().getToMoveObjectsInfo(jobId, sequence, count);
+				} else {
+					moveList = Utils.getDBInstance().getToRerunObjectsInfo(jobId, sequence, count);
+				}
+				long end = System.currentTimeMillis();
+				logger.info("getToMoveObjectsInfo : {}ms, sequence : {}, list size : {}", end - start, sequence, moveList.size());
+
+				dispatch(moveList);
+				sequence += count;
+			}
+			putHeldRows();
+		} catch (InterruptedException e) {
+			logger.warn("dispatcher interrupted");
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			Utils.logging(logger, e);
+		} finally {
+			isDone = true;
+			MDC.remove("logFileName");
+		}
+	}
+
+	private void runOrdered() throws InterruptedException {
+		while (!Utils.getDBInstance().isJobListComplete(jobId)) {
+			Thread.sleep(POLL_INTERVAL);
+		}
+		if (MoverConfig.MOVE_ORDER_SIZE.equals(order) || longTailSize > 0) {
+			Utils.getDBInstance().createSizeIndex(jobId, isRerun);
+		}
+
+		if (longTailSize > 0 && !MoverConfig.MOVE_ORDER_SIZE.equals(order)) {
+			logger.info("move order : objects of {} bytes and larger by size, then by {}", longTailSize, order);
+			dispatchOrdered(MoverConfig.MOVE_ORDER_SIZE, longTailSize, Long.MAX_VALUE);
+			dispatchOrdered(order, 0, longTailSize);
+		} else {
+			logger.info("move order : {}", order);
+			dispatchOrdered(order, 0, Long.MAX_VALUE);
+		}
+		putHeldRows();
+	}
+
+	private void dispatchOrdered(String order, long minSize, long maxSize) throws InterruptedException {
+		MoveData last = null;
+		while (true) {
+			if (!isHungry()) {
+				Thread.sleep(WAIT_INTERVAL);
+				continue;
+			}
+
+			long start = System.currentTimeMillis();
+			List<MoveData> moveList = Utils.getDBInstance().getToMoveObjectsInfoOrdered(jobId, isRerun, order, minSize, maxSize, last, limit);
+			long end = System.currentTimeMillis();
+			logger.info("getToMoveObjectsInfoOrdered : {}ms, order : {}, list size : {}", end - start, order, moveList.size());
+			if (moveList.isEmpty()) {
+				return;
+			}
+
+			dispatch(moveList);
+			last = moveList.get(moveList.size() - 1);
+			if (moveList.size() < limit) {
+				return;
+			}
+		}
+	}
+
+	// read the next page when at least one lane that is not full is running short,
+	// and no full lane has MAX_LANE_ROWS held back already
+	private boolean isHungry() {
+		moveHeldRows();
+		boolean isHungry = false;
+		for (int i = 0; i < lanes.size(); i++) {
+			if (heldRows.get(i).size() >= MAX_LANE_ROWS) {
+				return false;
+			}
+			if (laneRows.get(i).get() < Math.min(MAX_LANE_ROWS, (long) prefetchCount * limit)) {
+				isHungry = true;
+			}
+		}
+		return isHungry;
+	}
+
+	// the held back rows go to the queue of their lane as it drains
+	private void moveHeldRows() {
+		for (int i = 0; i < lanes.size(); i++) {
+			List<MoveData> held = heldRows.get(i);
+			int from = 0;
+			while (from < held.size() && laneRows.get(i).get() < MAX_LANE_ROWS) {
+				int to = Math.min(held.size(), from + limit);
+				enqueue(i, new ArrayList<MoveData>(held.subList(from, to)));
+				from = to;
+			}
+			held.subList(0, from).clear();
+		}
+	}
+
+	// everything is read, wait until the full lanes take the rest
+	private void putHeldRows() throws InterruptedException {
+		while (true) {
+			moveHeldRows();
+			boolean isEmpty = true;
+			for (List<MoveData> held : heldRows) {
+				if (!held.isEmpty()) {
+					isEmpty = false;
+				}
+			}
+			if (isEmpty) {
+				return;
+			}
+			Thread.sleep(WAIT_INTERVAL);
+		}
+	}
+
+	private void dispatch(List<MoveData> moveList) {
+		if (moveList.isEmpty()) {
+			return;
+		}
+
+		if (lanes.size() == 1) {
+			put(0, moveList);
+			return;
+		}
+
+		List<List<MoveData>> laneLists = new ArrayList<List<MoveData>>();
+		for (int i = 0; i < lanes.size(); i++) {
+			laneLists.add(new ArrayList<MoveData>());
+		}
+		for (MoveData moveData : moveList) {
+			laneLists.get(getLane(moveData.getSize())).add(moveData);
+		}
+		for (int i = 0; i < lanes.size(); i++) {
+			if (!laneLists.get(i).isEmpty()) {
+				put(i, laneLists.get(i));
+			}
+		}
+	}
+
+	private int getLane(long size) {
+		if (size < smallSize) {
+			return LANE_SMALL;
+		} else if (size >= hugeSize) {
+			return LANE_HUGE;
+		}
+		return LANE_MEDIUM;
+	}
+
+	private void put(int lane, List<MoveData> moveList) {
+		if (laneRows.get(lane).get() >= MAX_LANE_ROWS || !heldRows.get(lane).isEmpty()) {
+			heldRows.get(lane).addAll(moveList);
+			return;
+		}
+		enqueue(lane, moveList);
+	}
+
+	private void enqueue(int lane, List<MoveData> moveList) {
+		laneRows.get(lane).addAndGet(moveList.size());
+		List<MoveData> chunk = new ArrayList<MoveData>();
+		long chunkBytes = 0;
+		for (MoveData moveData : moveList) {
+			if (!chunk.isEmpty() && (chunk.size() >= CHUNK_ROWS || chunkBytes + moveData.getSize() > CHUNK_BYTES)) {
+				lanes.get(lane).add(chunk);
+				chunk = new ArrayList<MoveData>();
+				chunkBytes = 0;
+			}
+			chunk.add(moveData);
+			chunkBytes += moveData.getSize();
+		}
+		if (!chunk.isEmpty()) {
+			lanes.get(lane).add(chunk);
+		}
+	}
+
+	// returns null when there is nothing left to move
+	public List<MoveData> take() throws InterruptedException {
+		return take(0);
+	}
+
+	// returns null when there is nothing left to move in the lane
+	public List<MoveData> take(int lane) throws InterruptedException {
+		BlockingQueue<List<MoveData>> queue = lanes.get(lane);
+		while (true) {
+			List<MoveData> moveList = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			if (moveList != null) {
+				laneRows.get(lane).addAndGet(-moveList.size());
+				return moveList;
+			}
+			if (isDone && queue.isEmpty()) {
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Decides whether a failed object move is tried again and how long to wait before it.
+// Errors are classified as throttle, transient or permanent, permanent errors are not retried.
+// Transient retries of a job share a budget (retry_budget percent of the objects and parts tried),
+// so a failing target is not hit by a retry storm.
+// A multipart object is retried by its parts, a part that used up its retries fails the object
+// without a new round, and the S3 clients of the movers do not retry by themselves.
+// Set retry_policy to the class name of a subclass to use another policy.
+public abstract class MoveRetryPolicy {
+	private static final Logger logger = LoggerFactory.getLogger(MoveRetryPolicy.class);
+
+	public enum ErrorClass {
+		THROTTLE, TRANSIENT, PERMANENT
+	}
+
+	// every job may retry at least this many times, whatever the budget
+	private static final long MIN_BUDGET = 100;
+
+	protected int maxRetries;
+	protected int maxThrottleRetries;
+	protected long baseDelay;
+	protected long maxDelay;
+	private int budgetPercent;
+
+	private AtomicLong attemptCount = new AtomicLong(0);
+	private AtomicLong budgetUsed = new AtomicLong(0);
+	private AtomicBoolean isBudgetExhausted = new AtomicBoolean(false);
+	private AtomicLong[] retryCounts;
+	private AtomicLong[] failureCounts;
+
+	public static MoveRetryPolicy newInstance(MoverConfig moverConfig) {
+		MoveRetryPolicy policy = null;
+		String className = moverConfig.getRetryPolicy();
+		if (className != null && !className.isEmpty()) {
+			try {
+				policy = (MoveRetryPolicy) Class.forName(className).getDeclaredConstructor().newInstance();
+			} catch (Exception e) {
+				logger.warn("invalid retry_policy : {}, use the default policy. ({})", className, e.getMessage());
+			}
+		}
+		if (policy == null) {
+			policy = new BackoffRetryPolicy();
+		}
+		policy.init(moverConfig);
+		return policy;
+	}
+
+	protected void init(MoverConfig moverConfig) {
+		init(moverConfig.getRetryCount(), moverConfig.getThrottleRetryCount(), moverConfig.getRetryBaseDelay(),
+			moverConfig.getRetryMaxDelay(), moverConfig.getRetryBudget());
+	}
+
+	void init(int maxRetries, int maxThrottleRetries, long baseDelay, long maxDelay, int budgetPercent) {
+		this.maxRetries = maxRetries;
+		this.maxThrottleRetries = maxThrottleRetries;
+		this.baseDelay = baseDelay;
+		this.maxDelay = maxDelay;
+		this.budgetPercent = budgetPercent;
+
+		int classCount = ErrorClass.values().length;
+		retryCounts = new AtomicLong[classCount];
+		failureCounts = new AtomicLong[classCount];
+		for (int i = 0; i < classCount; i++) {
+			retryCounts[i] = new AtomicLong(0);
+			failureCounts[i] = new AtomicLong(0);
+		}
+
+		logger.info("retry policy : {}, retries {}, throttle retries {}, delay {}-{} ms, budget {}%",
+			getClass().getSimpleName(), maxRetries, maxThrottleRetries, baseDelay, maxDelay, budgetPercent);
+	}
+
+	public abstract ErrorClass classify(Exception e);
+
+	// delay in ms before retry number attempt + 1
+	protected abstract long getDelay(ErrorClass errorClass, int attempt);
+
+	protected int getMaxRetries(ErrorClass errorClass) {
+		switch (errorClass) {
+		case THROTTLE:
+			return maxThrottleRetries;
+		case TRANSIENT:
+			return maxRetries;
+		default:
+			return 0;
+		}
+	}
+
+	// called once for every object and every part before its first attempt
+	public void onAttempt() {
+		attemptCount.incrementAndGet();
+	}
+
+	// returns the delay in ms before the next attempt, or -1 if the move must not be retried
+	public long nextDelay(ErrorClass errorClass, int attempt) {
+		if (attempt >= getMaxRetries(errorClass) || (errorClass == ErrorClass.TRANSIENT && !takeBudget())) {
+			failureCounts[errorClass.ordinal()].incrementAndGet();
+			return -1;
+		}
+		retryCounts[errorClass.ordinal()].incrementAndGet();
+		return getDelay(errorClass, attempt);
+	}
+
+	private boolean takeBudget() {
+		if (budgetPercent <= 0) {
+			return true;
+		}
+
+		long budget = MIN_BUDGET + attemptCount.get() * budgetPercent / 100;
+		if (budgetUsed.incrementAndGet() <= budget) {
+			return true;
+		}
+		budgetUsed.decrementAndGet();
+		if (isBudgetExhausted.compareAndSet(false, true)) {
+			logger.warn("retry budget is exhausted ({} retries for {} objects), transient errors are not retried for now.", budget, attemptCount.get());
+		}
+		return false;
+	}
+
+	public long getRetryCount(ErrorClass errorClass) {
+		return retryCounts[errorClass.ordinal()].get();
+	}
+
+	public long getFailureCount(ErrorClass errorClass) {
+		return failureCounts[errorClass.ordinal()].get();
+	}
+
+	public void logStats() {
+		logger.info("retries : throttle {}, transient {} / failed after retry : throttle {}, transient {}, permanent {}",
+			getRetryCount(ErrorClass.THROTTLE), getRetryCount(ErrorClass.TRANSIENT),
+			getFailureCount(ErrorClass.THROTTLE), getFailureCount(ErrorClass.TRANSIENT), getFailureCount(ErrorClass.PERMANENT));
+	}
+
+	// a part failed after its retries, the failure is already counted
+	public static class RetriesExhaustedException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		public RetriesExhaustedException(Exception cause) {
+			super(cause.getMessage(), cause);
+		}
+	}
+
+	// full jitter : a random delay between 0 and min(max, base * 2^attempt)
+	public static long fullJitter(long base, long max, int attempt) {
+		long ceiling = base << Math.min(attempt, 30);
+		if (ceiling <= 0 || ceiling > max) {
+			ceiling = max;
+		}
+		if (ceiling <= 0) {
+			return 0;
+		}
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+}
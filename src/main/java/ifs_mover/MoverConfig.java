@@ -31,6 +31,51 @@ public class MoverConfig {
 	private int dbPoolSize;
     private String replaceChars;
     private boolean isSetTagetPathToLowerCase;
+    private int partThreadCount;
+    private boolean isStreamListing;
+    private boolean isSizeLanes;
+    private long smallObjectSize;
+    private long hugeObjectSize;
+    private int smallLaneThreadCount;
+    private int mediumLaneThreadCount;
+    private int hugeLaneThreadCount;
+    private int hugeLanePartThreadCount;
+    private boolean isAdaptiveThread;
+    private int minThreadCount;
+    private int maxThreadCount;
+    private int adaptiveInterval;
+    private long sourceBandwidth;
+    private long sourceRequestRate;
+    private long targetBandwidth;
+    private long targetRequestRate;
+    private String limitSchedule;
+    private boolean isVirtualThread;
+    private int smallObjectThreads;
+    private boolean isServerSideCopy;
+    private String retryPolicy;
+    private int retryCount;
+    private int throttleRetryCount;
+    private long retryBaseDelay;
+    private long retryMaxDelay;
+    private int retryBudget;
+    private int staleUploadHours;
+    private boolean isRangedGet;
+    private long rangedGetMinSize;
+    private int rangedGetMaxStreams;
+    private int filePartThreadCount;
+    private boolean isVerifyChecksum;
+    private boolean isChecksumCrc;
+    private boolean isPartBuffer;
+    private long partBufferMemory;
+    private String moveOrder;
+    private long longTailSize;
+    private boolean isPartStealing;
+    private boolean isHedge;
+    private int hedgePercentile;
+    private int hedgeMultiplier;
+    private int hedgeMaxRate;
+    private long inflightLimit;
+    private int listThreadCount;
 
     private static final Logger logger = LoggerFactory.getLogger(MoverConfig.class);
 
@@ -46,6 +91,69 @@ public class MoverConfig {
     public static final String SQLITEDB = "sqlite";
     public static final String REPLACE_CHARS = "replace_chars";
     public static final String SET_TARGET_PATH_TO_LOWERCASE = "set_targfet_path_to_lowercase";
+    public static final String PART_THREAD_COUNT = "part_thread_count";
+    public static final String STREAM_LISTING = "stream_listing";
+    public static final String SIZE_LANES = "size_lanes";
+    public static final String SMALL_OBJECT_SIZE = "small_object_size";
+    public static final String HUGE_OBJECT_SIZE = "huge_object_size";
+    public static final String SMALL_LANE_THREAD_COUNT = "small_lane_thread_count";
+    public static final String MEDIUM_LANE_THREAD_COUNT = "medium_lane_thread_count";
+    public static final String HUGE_LANE_THREAD_COUNT = "huge_lane_thread_count";
+    public static final String HUGE_LANE_PART_THREAD_COUNT = "huge_lane_part_thread_count";
+    public static final String ADAPTIVE_THREAD = "adaptive_thread";
+    public static final String MIN_THREAD_COUNT = "min_thread_count";
+    public static final String MAX_THREAD_COUNT = "max_thread_count";
+    public static final String ADAPTIVE_INTERVAL = "adaptive_interval";
+    public static final String SOURCE_BANDWIDTH = "source_bandwidth";
+    public static final String SOURCE_REQUEST_RATE = "source_request_rate";
+    public static final String TARGET_BANDWIDTH = "target_bandwidth";
+    public static final String TARGET_REQUEST_RATE = "target_request_rate";
+    public static final String LIMIT_SCHEDULE = "limit_schedule";
+    public static final String VIRTUAL_THREAD = "virtual_thread";
+    public static final String SMALL_OBJECT_THREADS = "small_object_threads";
+    // replaced by small_object_threads, still read so old conf files keep working
+    public static final String TRANSFER_ENGINE = "transfer_engine";
+    public static final String ASYNC_INFLIGHT = "async_inflight";
+    public static final String SERVER_SIDE_COPY = "server_side_copy";
+    public static final String RETRY_POLICY = "retry_policy";
+    public static final String RETRY_COUNT = "retry_count";
+    public static final String THROTTLE_RETRY_COUNT = "throttle_retry_count";
+    public static final String RETRY_BASE_DELAY = "retry_base_delay";
+    public static final String RETRY_MAX_DELAY = "retry_max_delay";
+    public static final String RETRY_BUDGET = "retry_budget";
+    public static final String STALE_UPLOAD_HOURS = "stale_upload_hours";
+    public static final String RANGED_GET = "ranged_get";
+    public static final String RANGED_GET_MIN_SIZE = "ranged_get_min_size";
+    public static final String RANGED_GET_MAX_STREAMS = "ranged_get_max_streams";
+    public static final String FILE_PART_THREAD_COUNT = "file_part_thread_count";
+    public static final String VERIFY_CHECKSUM = "verify_checksum";
+    // CRC32C on Java 9 or later, CRC32 on Java 8
+    public static final String CHECKSUM_CRC32C = "checksum_crc32c";
+    public static final String PART_BUFFER = "part_buffer";
+    public static final String PART_BUFFER_MEMORY = "part_buffer_memory";
+    public static final String MOVE_ORDER = "move_order";
+    public static final String LONG_TAIL_SIZE = "long_tail_size";
+    public static final String PART_STEALING = "part_stealing";
+    public static final String HEDGE = "hedge";
+    public static final String HEDGE_PERCENTILE = "hedge_percentile";
+    public static final String HEDGE_MULTIPLIER = "hedge_multiplier";
+    public static final String HEDGE_MAX_RATE = "hedge_max_rate";
+    public static final String INFLIGHT_LIMIT = "inflight_limit";
+    public static final String INFLIGHT_LIMIT_AUTO = "auto";
+    public static final String LIST_THREAD_COUNT = "list_thread_count";
+    public static final String TRANSFER_ENGINE_ASYNC = "async";
+    public static final String MOVE_ORDER_SEQUENCE = "sequence";
+    public static final String MOVE_ORDER_SIZE = "size";
+    public static final String MOVE_ORDER_MTIME = "mtime";
+
+    private static final int DEFAULT_PART_THREAD_COUNT = 4;
+    private static final int DEFAULT_VIRTUAL_SMALL_OBJECT_THREADS = 64;
+    // inflight_limit=auto, percent of the max heap
+    private static final long INFLIGHT_HEAP_PERCENT = 50;
+    private static final long MEGA_BYTES = 1024 * 1024;
+    private static final long GIGA_BYTES = 1024 * 1024 * 1024;
+    private static final long DEFAULT_SMALL_OBJECT_SIZE = 8 * MEGA_BYTES;
+    private static final long DEFAULT_RANGED_GET_MIN_SIZE = 64 * MEGA_BYTES;
 
     private static final String LOG_CONFIG_NOT_EXIST = "config file is not exist.";
     private static final String LOG_CONFIG_FAILED_LOADING = "config file loading is failed.";
@@ -302,6 +410,140 @@ public class MoverConfig {
         } else {
             isSetTagetPathToLowerCase = false;
         }
+
+        partThreadCount = getIntProperty(PART_THREAD_COUNT, DEFAULT_PART_THREAD_COUNT);
+        if (partThreadCount < 1) {
+            partThreadCount = 1;
+        }
+
+        isStreamListing = getIntProperty(STREAM_LISTING, 0) == 1;
+
+        // lane thread counts of 0 are replaced with values from --thread when the mover starts
+        isSizeLanes = getIntProperty(SIZE_LANES, 0) == 1;
+        smallObjectSize = getSizeProperty(SMALL_OBJECT_SIZE, DEFAULT_SMALL_OBJECT_SIZE);
+        hugeObjectSize = getSizeProperty(HUGE_OBJECT_SIZE, 0);
+        smallLaneThreadCount = getIntProperty(SMALL_LANE_THREAD_COUNT, 0);
+        mediumLaneThreadCount = getIntProperty(MEDIUM_LANE_THREAD_COUNT, 0);
+        hugeLaneThreadCount = getIntProperty(HUGE_LANE_THREAD_COUNT, 0);
+        hugeLanePartThreadCount = getIntProperty(HUGE_LANE_PART_THREAD_COUNT, partThreadCount * 2);
+        if (hugeLanePartThreadCount < 1) {
+            hugeLanePartThreadCount = 1;
+        }
+
+        isAdaptiveThread = getIntProperty(ADAPTIVE_THREAD, 0) == 1;
+        minThreadCount = getIntProperty(MIN_THREAD_COUNT, 1);
+        maxThreadCount = getIntProperty(MAX_THREAD_COUNT, 0);
+        adaptiveInterval = getIntProperty(ADAPTIVE_INTERVAL, 10);
+        if (adaptiveInterval < 1) {
+            adaptiveInterval = 1;
+        }
+
+        sourceBandwidth = getIntProperty(SOURCE_BANDWIDTH, 0);
+        sourceRequestRate = getIntProperty(SOURCE_REQUEST_RATE, 0);
+        targetBandwidth = getIntProperty(TARGET_BANDWIDTH, 0);
+        targetRequestRate = getIntProperty(TARGET_REQUEST_RATE, 0);
+        limitSchedule = properties.getProperty(LIMIT_SCHEDULE);
+        isVirtualThread = getIntProperty(VIRTUAL_THREAD, 0) == 1;
+
+        smallObjectThreads = getIntProperty(SMALL_OBJECT_THREADS, -1);
+        if (properties.getProperty(SMALL_OBJECT_THREADS) == null
+            && TRANSFER_ENGINE_ASYNC.equalsIgnoreCase(properties.getProperty(TRANSFER_ENGINE, "").trim())) {
+            smallObjectThreads = getIntProperty(ASYNC_INFLIGHT, 64);
+            logger.warn("{}={} is deprecated, use {}={}", TRANSFER_ENGINE, TRANSFER_ENGINE_ASYNC, SMALL_OBJECT_THREADS, smallObjectThreads);
+        }
+        if (smallObjectThreads < -1) {
+            smallObjectThreads = 0;
+        }
+
+        isServerSideCopy = getIntProperty(SERVER_SIDE_COPY, 0) == 1;
+
+        retryPolicy = properties.getProperty(RETRY_POLICY, "").trim();
+        retryCount = Math.max(0, getIntProperty(RETRY_COUNT, 3));
+        throttleRetryCount = Math.max(0, getIntProperty(THROTTLE_RETRY_COUNT, 8));
+        retryBaseDelay = Math.max(1, getIntProperty(RETRY_BASE_DELAY, 100));
+        retryMaxDelay = Math.max(retryBaseDelay, getIntProperty(RETRY_MAX_DELAY, 20000));
+        retryBudget = getIntProperty(RETRY_BUDGET, 10);
+        staleUploadHours = Math.max(0, getIntProperty(STALE_UPLOAD_HOURS, 24));
+
+        isRangedGet = getIntProperty(RANGED_GET, 0) == 1;
+        rangedGetMinSize = getSizeProperty(RANGED_GET_MIN_SIZE, DEFAULT_RANGED_GET_MIN_SIZE);
+        rangedGetMaxStreams = getIntProperty(RANGED_GET_MAX_STREAMS, partThreadCount);
+        if (rangedGetMaxStreams < 1) {
+            rangedGetMaxStreams = 1;
+        }
+        filePartThreadCount = getIntProperty(FILE_PART_THREAD_COUNT, partThreadCount);
+        if (filePartThreadCount < 1) {
+            filePartThreadCount = 1;
+        }
+
+        isVerifyChecksum = getIntProperty(VERIFY_CHECKSUM, 0) == 1;
+        isChecksumCrc = getIntProperty(CHECKSUM_CRC32C, 0) == 1;
+
+        isPartBuffer = getIntProperty(PART_BUFFER, 0) == 1;
+        partBufferMemory = getSizeProperty(PART_BUFFER_MEMORY, 0);
+
+        moveOrder = properties.getProperty(MOVE_ORDER, MOVE_ORDER_SEQUENCE).trim().toLowerCase();
+        if (!moveOrder.equals(MOVE_ORDER_SEQUENCE) && !moveOrder.equals(MOVE_ORDER_SIZE) && !moveOrder.equals(MOVE_ORDER_MTIME)) {
+            logger.warn("invalid {} : {}, use {}", MOVE_ORDER, moveOrder, MOVE_ORDER_SEQUENCE);
+            moveOrder = MOVE_ORDER_SEQUENCE;
+        }
+        longTailSize = getSizeProperty(LONG_TAIL_SIZE, 0);
+        isPartStealing = getIntProperty(PART_STEALING, 0) == 1;
+
+        isHedge = getIntProperty(HEDGE, 0) == 1;
+        hedgePercentile = getIntProperty(HEDGE_PERCENTILE, 99);
+        hedgeMultiplier = getIntProperty(HEDGE_MULTIPLIER, 2);
+        hedgeMaxRate = getIntProperty(HEDGE_MAX_RATE, 5);
+
+        String inflight = properties.getProperty(INFLIGHT_LIMIT, "").trim();
+        if (inflight.equalsIgnoreCase(INFLIGHT_LIMIT_AUTO)) {
+            inflightLimit = Runtime.getRuntime().maxMemory() / 100 * INFLIGHT_HEAP_PERCENT;
+        } else {
+            inflightLimit = getSizeProperty(INFLIGHT_LIMIT, 0);
+        }
+
+        listThreadCount = getIntProperty(LIST_THREAD_COUNT, 1);
+        if (listThreadCount < 1) {
+            listThreadCount = 1;
+        }
+    }
+
+    // same units as part_size in the source conf, M or G (default M)
+    private long getSizeProperty(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        value = value.trim().toUpperCase();
+        try {
+            int unitIndex = value.indexOf("M");
+            if (unitIndex > 0) {
+                return Long.parseLong(value.substring(0, unitIndex)) * MEGA_BYTES;
+            }
+            unitIndex = value.indexOf("G");
+            if (unitIndex > 0) {
+                return Long.parseLong(value.substring(0, unitIndex)) * GIGA_BYTES;
+            }
+            return Long.parseLong(value) * MEGA_BYTES;
+        } catch (NumberFormatException e) {
+            logger.warn("invalid {} : {}, use default value {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private int getIntProperty(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("invalid {} : {}, use default value {}", key, value, defaultValue);
+            return defaultValue;
+        }
     }
 
     public static String getDBRepository() {
@@ -363,4 +605,196 @@ public class MoverConfig {
     public boolean isSetTagetPathToLowerCase() {
         return isSetTagetPathToLowerCase;
     }
+
+    public int getPartThreadCount() {
+        return partThreadCount;
+    }
+
+    public boolean isStreamListing() {
+        return isStreamListing;
+    }
+
+    public boolean isSizeLanes() {
+        return isSizeLanes;
+    }
+
+    public long getSmallObjectSize() {
+        return smallObjectSize;
+    }
+
+    public long getHugeObjectSize() {
+        return hugeObjectSize;
+    }
+
+    public int getSmallLaneThreadCount() {
+        return smallLaneThreadCount;
+    }
+
+    public int getMediumLaneThreadCount() {
+        return mediumLaneThreadCount;
+    }
+
+    public int getHugeLaneThreadCount() {
+        return hugeLaneThreadCount;
+    }
+
+    public int getHugeLanePartThreadCount() {
+        return hugeLanePartThreadCount;
+    }
+
+    public boolean isAdaptiveThread() {
+        return isAdaptiveThread;
+    }
+
+    public int getMinThreadCount() {
+        return minThreadCount;
+    }
+
+    public int getMaxThreadCount() {
+        return maxThreadCount;
+    }
+
+    public int getAdaptiveInterval() {
+        return adaptiveInterval;
+    }
+
+    public long getSourceBandwidth() {
+        return sourceBandwidth;
+    }
+
+    public long getSourceRequestRate() {
+        return sourceRequestRate;
+    }
+
+    public long getTargetBandwidth() {
+        return targetBandwidth;
+    }
+
+    public long getTargetRequestRate() {
+        return targetRequestRate;
+    }
+
+    public String getLimitSchedule() {
+        return limitSchedule;
+    }
+
+    public boolean isVirtualThread() {
+        return isVirtualThread;
+    }
+
+    // not set : 64 with virtual threads, otherwise 0 (off)
+    public int getSmallObjectThreads() {
+        if (smallObjectThreads < 0) {
+            return MoverExecutors.isVirtualThread() ? DEFAULT_VIRTUAL_SMALL_OBJECT_THREADS : 0;
+        }
+        return smallObjectThreads;
+    }
+
+    public boolean isServerSideCopy() {
+        return isServerSideCopy;
+    }
+
+    public String getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    public int getThrottleRetryCount() {
+        return throttleRetryCount;
+    }
+
+    public long getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    public long getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    public int getRetryBudget() {
+        return retryBudget;
+    }
+
+    public int getStaleUploadHours() {
+        return staleUploadHours;
+    }
+
+    public boolean isRangedGet() {
+        return isRangedGet;
+    }
+
+    public long getRangedGetMinSize() {
+        return rangedGetMinSize;
+    }
+
+    public int getRangedGetMaxStreams() {
+        return rangedGetMaxStreams;
+    }
+
+    public int getFilePartThreadCount() {
+        return filePartThreadCount;
+    }
+
+    public boolean isVerifyChecksum() {
+        return isVerifyChecksum;
+    }
+
+    public boolean isChecksumCrc() {
+        return isChecksumCrc;
+    }
+
+    public boolean isPartBuffer() {
+        return isPartBuffer;
+    }
+
+    // 0 : part_size x part_thread_count
+    public long getPartBufferMemory() {
+        return partBufferMemory;
+    }
+
+    public String getMoveOrder() {
+        return moveOrder;
+    }
+
+    public long getLongTailSize() {
+        return longTailSize;
+    }
+
+    // objects are not moved in listing order, the whole list is needed first
+    public boolean isOrderedMove() {
+        return !moveOrder.equals(MOVE_ORDER_SEQUENCE) || longTailSize > 0;
+    }
+
+    public boolean isPartStealing() {
+        return isPartStealing;
+    }
+
+    public boolean isHedge() {
+        return isHedge;
+    }
+
+    public int getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public int getHedgeMultiplier() {
+        return hedgeMultiplier;
+    }
+
+    // percent of the requests that may be sent twice
+    public int getHedgeMaxRate() {
+        return hedgeMaxRate;
+    }
+
+    // bytes, 0 : no limit
+    public long getInflightLimit() {
+        return inflightLimit;
+    }
+
+    public int getListThreadCount() {
+        return listThreadCount;
+    }
 }
@@ -0,0 +1,92 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Thread pools for movers and DB workers.
+// With virtual_thread=1 on Java 21 or later the pool threads are virtual threads, the pool sizes stay the same.
+// The Java 21 API is reached through VirtualThreads so the source still builds for Java 8.
+public class MoverExecutors {
+	private static final Logger logger = LoggerFactory.getLogger(MoverExecutors.class);
+
+	private static volatile ThreadFactory virtualThreadFactory;
+	private static volatile boolean isChecked;
+
+	private MoverExecutors() {
+	}
+
+	public static ExecutorService newFixedThreadPool(int threadCount) {
+		ThreadFactory factory = getVirtualThreadFactory();
+		if (factory != null) {
+			return Executors.newFixedThreadPool(threadCount, factory);
+		}
+		return Executors.newFixedThreadPool(threadCount);
+	}
+
+	public static boolean isVirtualThread() {
+		return getVirtualThreadFactory() != null;
+	}
+
+	// with virtual threads every task gets a new thread, the caller bounds the running tasks with a semaphore
+	// (threadCount is not used), otherwise a fixed pool of threadCount threads
+	public static ExecutorService newThreadPerTaskExecutor(int threadCount) {
+		ThreadFactory factory = getVirtualThreadFactory();
+		if (factory != null) {
+			try {
+				return VirtualThreads.newThreadPerTaskExecutor(factory);
+			} catch (Exception e) {
+				logger.warn("can't create a virtual thread per task executor, use a thread pool. ({})", e.getMessage());
+			}
+		}
+		return newFixedThreadPool(threadCount);
+	}
+
+	// a full queue runs the task in the caller, so a producer can't get more than queueSize tasks ahead
+	public static ExecutorService newBoundedThreadPool(int threadCount, int queueSize) {
+		ThreadFactory factory = getVirtualThreadFactory();
+		if (factory == null) {
+			factory = Executors.defaultThreadFactory();
+		}
+		return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(queueSize), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	private static ThreadFactory getVirtualThreadFactory() {
+		if (isChecked) {
+			return virtualThreadFactory;
+		}
+
+		synchronized (MoverExecutors.class) {
+			if (!isChecked) {
+				if (MoverConfig.getInstance().isVirtualThread()) {
+					try {
+						virtualThreadFactory = VirtualThreads.newThreadFactory();
+						logger.info("use virtual threads");
+					} catch (Exception e) {
+						logger.warn("virtual threads need Java 21 or later, use platform threads. ({})", System.getProperty("java.version"));
+					}
+				}
+				isChecked = true;
+			}
+		}
+		return virtualThreadFactory;
+	}
+}
@@ -0,0 +1,87 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.zip.Checksum;
+
+// Part checksums of a multipart upload, rebuilt into the composite "-N" ETag (MD5 of the part MD5s)
+// and a composite CRC (CRC of the part CRCs).
+public class MultipartChecksum {
+	private static final Pattern MD5_ETAG = Pattern.compile("[0-9a-fA-F]{32}");
+
+	private final Map<Integer, byte[]> md5s = new ConcurrentSkipListMap<Integer, byte[]>();
+	private final Map<Integer, Long> crcs = new ConcurrentSkipListMap<Integer, Long>();
+
+	public void addPart(int partNumber, ChecksumInputStream is) {
+		md5s.put(partNumber, is.getMd5());
+		if (is.isCrc()) {
+			crcs.put(partNumber, is.getCrc());
+		}
+	}
+
+	// a part moved by an earlier attempt, its ETag is the MD5 the SDK checked when it was uploaded
+	public void addPart(int partNumber, String etag) {
+		if (isMd5(etag)) {
+			md5s.put(partNumber, fromHex(etag));
+		}
+	}
+
+	public int getPartCount() {
+		return md5s.size();
+	}
+
+	public String getETag() {
+		try {
+			MessageDigest md5 = MessageDigest.getInstance("MD5");
+			for (byte[] partMd5 : md5s.values()) {
+				md5.update(partMd5);
+			}
+			return ChecksumInputStream.toHex(md5.digest()) + "-" + md5s.size();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// null if a part was moved by an earlier attempt, its CRC is unknown
+	public String getCrc() {
+		if (crcs.isEmpty() || crcs.size() != md5s.size()) {
+			return null;
+		}
+		Checksum crc = ChecksumInputStream.newCrc();
+		ByteBuffer buffer = ByteBuffer.allocate(4);
+		for (long partCrc : crcs.values()) {
+			buffer.clear();
+			buffer.putInt((int) partCrc);
+			crc.update(buffer.array(), 0, 4);
+		}
+		return String.format("%08x-%d", crc.getValue(), crcs.size());
+	}
+
+	// plain MD5 ETag, not a multipart or an encrypted one
+	public static boolean isMd5(String etag) {
+		return etag != null && MD5_ETAG.matcher(etag).matches();
+	}
+
+	private static byte[] fromHex(String hex) {
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+		}
+		return bytes;
+	}
+}
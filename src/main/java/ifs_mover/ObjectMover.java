@@ -12,21 +12,38 @@
 package ifs_mover;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import ifs_mover.db.MoverDB;
+import ifs_mover.repository.FileRangeInputStream;
 import ifs_mover.repository.IfsS3;
 import ifs_mover.repository.ObjectData;
 import ifs_mover.repository.Repository;
@@ -35,11 +52,16 @@ import ifs_mover.repository.RepositoryFactory;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.Mimetypes;
+import com.amazonaws.services.s3.internal.ServerSideEncryptionResult;
 import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyObjectResult;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartSummary;
 import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.SSEAlgorithm;
 import com.amazonaws.services.s3.model.ServerSideEncryptionConfiguration;
 import com.amazonaws.services.s3.model.Tag;
 
@@ -61,9 +83,34 @@ public class ObjectMover {
 	private long useMultipartSize;
 	private String replaceChars;
 	private boolean isSetTagetPathToLowerCase;
+	private int partThreadCount;
+	private int filePartThreadCount;
+	private boolean isVerifyChecksum;
+	private boolean isChecksumCrc;
+	private boolean isServerSideCopy;
+	private int smallObjectThreads;
 	// private String inventoryFileName;
 
 	private final int GET_OBJECTS_LIMIT = 1000;
+	private MoveDispatcher dispatcher;
+	private ConcurrencyController[] controllers;
+	private MoveRetryPolicy retryPolicy;
+	private RangedGetPlanner rangedGetPlanner;
+	private PartBufferPool partBufferPool;
+	private HedgedRequests getHedge;
+	private HedgedRequests partHedge;
+	private InflightBytes inflightBytes;
+	private boolean isPartStealing;
+	// uploads with waiting parts, oldest first
+	private final ConcurrentLinkedQueue<Mover.PartQueue> partQueues = new ConcurrentLinkedQueue<Mover.PartQueue>();
+	// Movers that still take objects from the dispatcher
+	private final AtomicInteger movingCount = new AtomicInteger(0);
+
+	private final long MAX_COPY_OBJECT_SIZE = 5L * 1024 * 1024 * 1024;
+	private final int MAX_PART_COUNT = 10000;
+	private final long PART_STEALING_INTERVAL = 100;
+	// seconds between the updates of the in-flight bytes and the retry counts in the job table
+	private final int STATUS_INTERVAL = 10;
 
 	private final String NO_SUCH_KEY = "NoSuchKey";
 	private final String NOT_FOUND = "Not Found";
@@ -142,7 +189,58 @@ public class ObjectMover {
 		useMultipartSize = sourceConfig.getUseMultipartSize();
 		replaceChars = moverConfig.getReplaceChars();
 		isSetTagetPathToLowerCase = moverConfig.isSetTagetPathToLowerCase();
-		logger.info("multipart size : {}, part size : {}, thread count: {}", useMultipartSize, partSize, threadCount);
+		partThreadCount = moverConfig.getPartThreadCount();
+		filePartThreadCount = moverConfig.getFilePartThreadCount();
+		isVerifyChecksum = moverConfig.isVerifyChecksum();
+		isChecksumCrc = isVerifyChecksum && moverConfig.isChecksumCrc();
+		if (isVerifyChecksum) {
+			logger.info("verify checksum : md5{}", isChecksumCrc ? ", " + ChecksumInputStream.getCrcName() : "");
+		}
+		smallObjectThreads = moverConfig.getSmallObjectThreads();
+		retryPolicy = MoveRetryPolicy.newInstance(moverConfig);
+		if (smallObjectThreads > 0) {
+			// every small object still takes a thread and a blocking request
+			logger.info("small object threads per thread : {}{}", smallObjectThreads, MoverExecutors.isVirtualThread() ? " (virtual)" : "");
+			if (!MoverExecutors.isVirtualThread() && (long) smallObjectThreads * threadCount > 1000) {
+				logger.warn("small_object_threads starts {} platform threads, use virtual_thread=1 on Java 21 or later", (long) smallObjectThreads * threadCount);
+			}
+		}
+		if (moverConfig.isRangedGet() && type.equalsIgnoreCase(Repository.S3)
+			&& targetConfig.isTargetSync() && targetConfig.getSyncMode() == SyncMode.ETAG) {
+			// a ranged get object is uploaded in parts, its target ETag (md5-N) would never match the source ETag
+			logger.warn("ranged get is not used with sync_mode=etag");
+		} else if (moverConfig.isRangedGet() && type.equalsIgnoreCase(Repository.S3)) {
+			rangedGetPlanner = new RangedGetPlanner(moverConfig.getRangedGetMinSize(), useMultipartSize, Math.min(moverConfig.getRangedGetMaxStreams(), partThreadCount));
+			logger.info("ranged get : {} up to {}, max streams : {}", moverConfig.getRangedGetMinSize(), useMultipartSize, moverConfig.getRangedGetMaxStreams());
+		}
+
+		if (moverConfig.isHedge()) {
+			if (type.equalsIgnoreCase(Repository.S3)) {
+				getHedge = new HedgedRequests("ranged get", moverConfig.getHedgePercentile(), moverConfig.getHedgeMultiplier(), moverConfig.getHedgeMaxRate());
+			}
+			partHedge = new HedgedRequests("upload part", moverConfig.getHedgePercentile(), moverConfig.getHedgeMultiplier(), moverConfig.getHedgeMaxRate());
+			logger.info("hedge : p{} x {}, at most {}% of the requests", moverConfig.getHedgePercentile(), moverConfig.getHedgeMultiplier(), moverConfig.getHedgeMaxRate());
+		}
+		inflightBytes = InflightBytes.getInstance();
+		isPartStealing = moverConfig.isPartStealing();
+		if (isPartStealing) {
+			logger.info("part stealing : idle threads move the waiting parts of other uploads");
+		}
+
+		// the target client copies the objects, so it must be able to read the source bucket
+		if (moverConfig.isServerSideCopy() && type.equalsIgnoreCase(Repository.S3)) {
+			String sourceEndPoint = sourceConfig.getEndPoint();
+			if (sourceEndPoint != null && sourceEndPoint.equalsIgnoreCase(targetConfig.getEndPoint())) {
+				isServerSideCopy = true;
+				logger.info("server side copy : source and target are on {}", sourceEndPoint);
+				if (sourceConfig.getAccessKey() != null && !sourceConfig.getAccessKey().equals(targetConfig.getAccessKey())) {
+					logger.warn("server side copy : the target access key must be allowed to read the source bucket.");
+				}
+			} else {
+				logger.info("server side copy : source and target endpoints are different, move data.");
+			}
+		}
+		logger.info("multipart size : {}, part size : {}, thread count: {}, part thread count : {}", useMultipartSize, partSize, threadCount, partThreadCount);
 	}
 	
 	public void check() {
@@ -234,6 +332,14 @@ public class ObjectMover {
 		// 	sourceRepository.makeObjectList(isRerun, targetVersioning);
 		// }
 
+		Utils.getDBInstance().updateJobListComplete(jobId, false);
+		if (isStreamListing()) {
+			// the source is listed by moveObjects() while moving, the target list must be ready before
+			logger.info("stream listing : the source list is made while moving.");
+			targetRepository.makeTargetObjectList(targetVersioning);
+			return;
+		}
+
 		sourceRepository.makeObjectList(isRerun, targetVersioning);
 
 		if (isRerun) {
@@ -244,10 +350,38 @@ public class ObjectMover {
 			long end = System.currentTimeMillis();
 			logger.info("skip check time : {} ms", end - start);
 		}
+		Utils.getDBInstance().updateJobListComplete(jobId, true);
 		
 		targetRepository.makeTargetObjectList(targetVersioning);
 	}
 
+	// ordered moves read the whole list, there is nothing to gain from moving while listing
+	private boolean isStreamListing() {
+		return moverConfig.isStreamListing() && !isRerun && !moverConfig.isOrderedMove();
+	}
+
+	private void startListing() {
+		Thread listThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				MDC.put("logFileName", "ifs_mover." + jobId + ".log");
+				try {
+					long start = System.currentTimeMillis();
+					sourceRepository.makeObjectList(isRerun, targetVersioning);
+					long end = System.currentTimeMillis();
+					logger.info("source list is complete : {} ms", end - start);
+				} catch (Exception e) {
+					Utils.logging(logger, e);
+				} finally {
+					Utils.getDBInstance().updateJobListComplete(jobId, true);
+					MDC.remove("logFileName");
+				}
+			}
+		}, "list-" + jobId);
+		listThread.setDaemon(true);
+		listThread.start();
+	}
+
 	// public void checkBucketEncrytion() {
 	// 	ServerSideEncryptionConfiguration sse = sourceRepository.getBucketEncryption();
 	// 	if (sse != null) {
@@ -255,8 +389,41 @@ public class ObjectMover {
 	// 	}
 	// }
 
+	// small objects are bound by request count, so the small lane gets the most threads
+	private int[] getLaneThreadCounts() {
+		int[] counts = new int[3];
+		counts[MoveDispatcher.LANE_SMALL] = moverConfig.getSmallLaneThreadCount() > 0 ? moverConfig.getSmallLaneThreadCount() : threadCount * 2;
+		counts[MoveDispatcher.LANE_MEDIUM] = moverConfig.getMediumLaneThreadCount() > 0 ? moverConfig.getMediumLaneThreadCount() : threadCount;
+		counts[MoveDispatcher.LANE_HUGE] = moverConfig.getHugeLaneThreadCount() > 0 ? moverConfig.getHugeLaneThreadCount() : Math.max(1, threadCount / 4);
+		return counts;
+	}
+
+	// one pool for the job, shared by the part threads of all Movers and lanes
+	private void createPartBufferPool(int[] laneThreadCounts) {
+		if (!moverConfig.isPartBuffer() || type.equalsIgnoreCase(Repository.IFS_FILE)) {
+			return;
+		}
+		if (partSize > Integer.MAX_VALUE) {
+			logger.warn("part buffers are not used, part size {} is over 2GB", partSize);
+			return;
+		}
+
+		long partThreads = 0;
+		for (int lane = 0; lane < laneThreadCounts.length; lane++) {
+			int lanePartThreadCount = lane == MoveDispatcher.LANE_HUGE ? moverConfig.getHugeLanePartThreadCount() : partThreadCount;
+			partThreads += (long) laneThreadCounts[lane] * lanePartThreadCount;
+		}
+		long memory = moverConfig.getPartBufferMemory();
+		if (memory <= 0) {
+			memory = partSize * partThreads;
+		} else if (memory / partSize < partThreads) {
+			logger.warn("part_buffer_memory has {} buffers for {} part threads, part readers will wait for buffers", memory / partSize, partThreads);
+		}
+		partBufferPool = new PartBufferPool(partSize, memory);
+	}
+
 	public void moveObjects() {		
-		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		ExecutorService executor = null;
 
 		try {
 			String prefix = targetConfig.getPrefix();
@@ -290,14 +457,94 @@ public class ObjectMover {
 				}
 			}
 
-			for (int i = 0; i < threadCount; i++) {
-				Mover mover = new Mover(i, isRerun);
-				executor.execute(mover);
+			if (isStreamListing()) {
+				startListing();
+			}
+
+			int[] laneThreadCounts = null;
+			if (moverConfig.isSizeLanes()) {
+				laneThreadCounts = getLaneThreadCounts();
+				long hugeSize = moverConfig.getHugeObjectSize() > 0 ? moverConfig.getHugeObjectSize() : useMultipartSize;
+				int maxLaneThreadCount = Math.max(laneThreadCounts[MoveDispatcher.LANE_SMALL], Math.max(laneThreadCounts[MoveDispatcher.LANE_MEDIUM], laneThreadCounts[MoveDispatcher.LANE_HUGE]));
+				dispatcher = new MoveDispatcher(jobId, isRerun, GET_OBJECTS_LIMIT, maxLaneThreadCount, moverConfig.getSmallObjectSize(), hugeSize);
+				logger.info("size lanes : small < {} <= medium < {} <= huge, threads : {}/{}/{}", moverConfig.getSmallObjectSize(), hugeSize,
+					laneThreadCounts[MoveDispatcher.LANE_SMALL], laneThreadCounts[MoveDispatcher.LANE_MEDIUM], laneThreadCounts[MoveDispatcher.LANE_HUGE]);
+			} else {
+				laneThreadCounts = new int[] {threadCount};
+				dispatcher = new MoveDispatcher(jobId, isRerun, GET_OBJECTS_LIMIT, threadCount);
+			}
+			dispatcher.setOrder(moverConfig.getMoveOrder(), moverConfig.getLongTailSize());
+			Thread dispatcherThread = new Thread(dispatcher, "dispatcher-" + jobId);
+			dispatcherThread.setDaemon(true);
+			dispatcherThread.start();
+
+			int totalThreadCount = 0;
+			for (int count : laneThreadCounts) {
+				totalThreadCount += count;
+			}
+
+			if (moverConfig.isAdaptiveThread()) {
+				// start enough movers for the upper bound, the controller decides how many of them are active
+				int maxThreadCount = moverConfig.getMaxThreadCount();
+				if (laneThreadCounts.length == 1) {
+					if (maxThreadCount <= 0) {
+						maxThreadCount = threadCount * 4;
+					}
+					laneThreadCounts[0] = maxThreadCount;
+					totalThreadCount = maxThreadCount;
+				} else if (maxThreadCount <= 0 || maxThreadCount > totalThreadCount) {
+					maxThreadCount = totalThreadCount;
+				}
+				// one controller per lane with its share of the limits, so a busy lane cannot take the permits of the others
+				controllers = new ConcurrencyController[laneThreadCounts.length];
+				for (int lane = 0; lane < laneThreadCounts.length; lane++) {
+					double share = (double) laneThreadCounts[lane] / totalThreadCount;
+					String name = laneThreadCounts.length == 1 ? "all" : MoveDispatcher.LANE_NAMES[lane];
+					controllers[lane] = new ConcurrencyController(jobId, name, (int) Math.ceil(moverConfig.getMinThreadCount() * share),
+						(int) Math.ceil(maxThreadCount * share), (int) Math.ceil(threadCount * share), moverConfig.getAdaptiveInterval() * 1000L);
+					Thread controllerThread = new Thread(controllers[lane], "controller-" + jobId + "-" + name);
+					controllerThread.setDaemon(true);
+					controllerThread.start();
+				}
+			}
+			createPartBufferPool(laneThreadCounts);
+			executor = MoverExecutors.newFixedThreadPool(totalThreadCount);
+
+			int threadNumber = 0;
+			for (int lane = 0; lane < laneThreadCounts.length; lane++) {
+				int lanePartThreadCount = lane == MoveDispatcher.LANE_HUGE ? moverConfig.getHugeLanePartThreadCount() : partThreadCount;
+				for (int i = 0; i < laneThreadCounts[lane]; i++) {
+					Mover mover = new Mover(threadNumber++, isRerun, lane, lanePartThreadCount);
+					executor.execute(mover);
+				}
 			}
 			executor.shutdown();
 
-			while (true) {
-				if (executor.isTerminated()) {
+			for (int seconds = 0; ; seconds++) {
+				boolean isTerminated = executor.isTerminated();
+				if (seconds % STATUS_INTERVAL == 0 || isTerminated) {
+					if (inflightBytes.isEnabled()) {
+						Utils.getDBInstance().updateJobInflight(jobId, inflightBytes.getUsed(), inflightBytes.getLimit());
+					}
+					Utils.getDBInstance().updateJobRetries(jobId,
+						retryPolicy.getRetryCount(MoveRetryPolicy.ErrorClass.THROTTLE), retryPolicy.getRetryCount(MoveRetryPolicy.ErrorClass.TRANSIENT),
+						retryPolicy.getFailureCount(MoveRetryPolicy.ErrorClass.THROTTLE), retryPolicy.getFailureCount(MoveRetryPolicy.ErrorClass.TRANSIENT),
+						retryPolicy.getFailureCount(MoveRetryPolicy.ErrorClass.PERMANENT));
+				}
+				if (isTerminated) {
+					dispatcherThread.interrupt();
+					if (controllers != null) {
+						for (ConcurrencyController controller : controllers) {
+							controller.stop();
+						}
+					}
+					retryPolicy.logStats();
+					if (getHedge != null) {
+						getHedge.logStats();
+					}
+					if (partHedge != null) {
+						partHedge.logStats();
+					}
 					logger.info("End of moving jobs");
 					return;
 				} else {
@@ -316,22 +563,755 @@ public class ObjectMover {
 		final Logger logger = LoggerFactory.getLogger(Mover.class);
 		private int threadNumber;
 		private boolean isRerun;
+		private int lane;
+		private ConcurrencyController controller;
 		private AmazonS3 sourceS3Client;
 		private AmazonS3 targetS3Client;
 
+		private int partThreadCount;
+		private ExecutorService partExecutor;
+		private ExecutorService smallObjectExecutor;
+		private Semaphore smallObjectPermits;
+		// the controller permit of the object the current thread moves
+		private final ThreadLocal<ConcurrencyController.Lease> currentLease = new ThreadLocal<ConcurrencyController.Lease>();
+		private boolean isFinished;
+
 		List<MoveData> latestList = new ArrayList<MoveData>();
 		List<MoveData> deletedList = new ArrayList<MoveData>();
 		
-		public Mover(int threadNumber, boolean isRerun) {
+		public Mover(int threadNumber, boolean isRerun, int lane, int partThreadCount) {
 			this.threadNumber = threadNumber;
 			this.isRerun = isRerun;
+			this.lane = lane;
+			if (controllers != null) {
+				controller = controllers[lane];
+			}
 			if (type.equalsIgnoreCase(Repository.S3)) {
 				sourceS3Client = sourceRepository.createS3Clients();
 			}
 			targetS3Client = targetRepository.createS3Clients();
+			this.partThreadCount = partThreadCount;
+			partExecutor = MoverExecutors.newFixedThreadPool(partThreadCount);
+			movingCount.incrementAndGet();
+			if (smallObjectThreads > 0) {
+				// smallObjectPermits keeps at most smallObjectThreads of them running
+				smallObjectExecutor = MoverExecutors.newThreadPerTaskExecutor(smallObjectThreads);
+				smallObjectPermits = new Semaphore(smallObjectThreads);
+			}
+		}
+
+		class SentPart {
+			private final String eTag;
+			// the stream the part was sent from, it has the checksum of the part
+			private final InputStream is;
+
+			SentPart(String eTag, InputStream is) {
+				this.eTag = eTag;
+				this.is = is;
+			}
+		}
+
+		// one part of a multipart object, a failed part is retried by itself while the other parts keep going
+		abstract class PartTask implements Callable<PartETag> {
+			protected String path;
+			protected int partNumber;
+			protected MultipartChecksum checksum;
+			// bytes of the part that go through the mover, taken from the in-flight bytes while the part moves
+			protected long inflightSize;
+			// the connections of the Mover that runs the part
+			protected AmazonS3 sourceClient = sourceS3Client;
+			protected AmazonS3 targetClient = targetS3Client;
+			// the permit of the object, parts are created on the thread that moves it
+			protected ConcurrencyController.Lease lease = currentLease.get();
+			private ByteBuffer buffer;
+			private boolean isBuffered;
+
+			abstract PartETag movePart() throws Exception;
+
+			PartTask withChecksum(MultipartChecksum checksum) {
+				this.checksum = checksum;
+				return this;
+			}
+
+			void setClients(AmazonS3 sourceClient, AmazonS3 targetClient) {
+				this.sourceClient = sourceClient;
+				this.targetClient = targetClient;
+			}
+
+			// the part is read through a checksum stream when checksums are verified
+			protected InputStream checksumStream(InputStream is) {
+				return checksum == null ? is : new ChecksumInputStream(is, isChecksumCrc);
+			}
+
+			protected void addChecksum(InputStream is) {
+				if (checksum != null) {
+					checksum.addPart(partNumber, (ChecksumInputStream) is);
+				}
+			}
+
+			// a ranged get, sent again if the source is slow to answer
+			protected ObjectData getRange(final String bucket, final String key, final String versionId, final long start, final long end) throws Exception {
+				Callable<ObjectData> request = new Callable<ObjectData>() {
+					@Override
+					public ObjectData call() throws Exception {
+						return sourceRepository.getObject(sourceClient, bucket, key, versionId, start, end);
+					}
+				};
+				if (getHedge == null) {
+					return request.call();
+				}
+				return getHedge.call(request, new HedgedRequests.Discard<ObjectData>() {
+					@Override
+					public void discard(ObjectData data) {
+						try {
+							if (data != null) {
+								data.close();
+							}
+						} catch (IOException e) {
+							logger.debug("{} part {} : {}", path, partNumber, e.getMessage());
+						}
+					}
+				});
+			}
+
+			// a part in a buffer can be read again, so a slow upload of it can be hedged
+			protected String sendPart(String targetBucket, String targetPath, String uploadId, InputStream is, long size) throws Exception {
+				if (partHedge == null || !isBuffered) {
+					is = checksumStream(is);
+					String partETag = targetRepository.uploadPart(targetClient, targetBucket, targetPath, uploadId, is, partNumber, size);
+					addChecksum(is);
+					return partETag;
+				}
+				return sendPart(targetBucket, targetPath, uploadId, size, new Callable<InputStream>() {
+					@Override
+					public InputStream call() {
+						return bufferedPart();
+					}
+				});
+			}
+
+			// every upload reads the part from a new stream of the source
+			protected String sendPart(final String targetBucket, final String targetPath, final String uploadId, final long size, final Callable<InputStream> source) throws Exception {
+				final HedgedRequests.BodyGuard guard = new HedgedRequests.BodyGuard();
+				Callable<SentPart> request = new Callable<SentPart>() {
+					@Override
+					public SentPart call() throws Exception {
+						InputStream is = checksumStream(guard.wrap(source.call()));
+						return new SentPart(targetRepository.uploadPart(targetClient, targetBucket, targetPath, uploadId, is, partNumber, size), is);
+					}
+				};
+				SentPart sent;
+				if (partHedge == null) {
+					sent = request.call();
+				} else {
+					try {
+						sent = partHedge.call(request, null);
+					} finally {
+						// the upload that lost must not send the buffer once it is reused
+						guard.close();
+					}
+				}
+				addChecksum(sent.is);
+				return sent.eTag;
+			}
+
+			// the part read by an earlier attempt, null if it must be read from the source
+			protected InputStream bufferedPart() {
+				return isBuffered ? new PartBufferPool.BufferInputStream(buffer) : null;
+			}
+
+			protected long getBufferedSize() {
+				return buffer.limit();
+			}
+
+			// reads the whole part into a pooled buffer and closes the source,
+			// parts larger than the buffers are streamed from the source
+			protected InputStream readPart(ObjectData data, long size) throws Exception {
+				if (partBufferPool == null || !partBufferPool.fits(size)) {
+					return data.getInputStream();
+				}
+
+				if (buffer == null) {
+					buffer = partBufferPool.acquire();
+				}
+				buffer.clear();
+				buffer.limit((int) size);
+				try {
+					ReadableByteChannel channel = Channels.newChannel(data.getInputStream());
+					while (buffer.hasRemaining()) {
+						if (channel.read(buffer) < 0) {
+							throw new IOException(path + " part " + partNumber + " : read " + buffer.position() + " of " + size + " bytes");
+						}
+					}
+				} finally {
+					data.close();
+				}
+				buffer.flip();
+				isBuffered = true;
+				return new PartBufferPool.BufferInputStream(buffer);
+			}
+
+			@Override
+			public PartETag call() throws Exception {
+				MDC.put("logFileName", "ifs_mover." + jobId + ".log");
+				int inflightPermits = 0;
+				try {
+					inflightPermits = inflightBytes.acquire(inflightSize);
+					retryPolicy.onAttempt();
+					for (int attempt = 0; ; attempt++) {
+						try {
+							return movePart();
+						} catch (InterruptedException e) {
+							throw e;
+						} catch (Exception e) {
+							MoveRetryPolicy.ErrorClass errorClass = retryPolicy.classify(e);
+							if (errorClass == MoveRetryPolicy.ErrorClass.THROTTLE && controller != null) {
+								controller.onThrottle();
+							}
+							if (Thread.currentThread().isInterrupted()) {
+								throw e;
+							}
+							long delay = retryPolicy.nextDelay(errorClass, attempt);
+							if (delay < 0) {
+								throw new MoveRetryPolicy.RetriesExhaustedException(e);
+							}
+							logger.info("retry {} part {} after {} ms ({}, attempt {})", path, partNumber, delay, errorClass, attempt + 1);
+							backoff(lease, delay);
+						}
+					}
+				} finally {
+					if (buffer != null) {
+						partBufferPool.release(buffer);
+						buffer = null;
+					}
+					inflightBytes.release(inflightPermits);
+					MDC.remove("logFileName");
+				}
+			}
+		}
+
+		// moves one part of a multipart object, ranged get from the source and upload to the target
+		class PartMover extends PartTask {
+			private String sourceBucket;
+			private String sourcePath;
+			private String versionId;
+			private long start;
+			private long end;
+			private String targetBucket;
+			private String targetPath;
+			private String uploadId;
+
+			PartMover(String path, String sourceBucket, String sourcePath, String versionId, long start, long end, String targetBucket, String targetPath, String uploadId, int partNumber) {
+				this.path = path;
+				this.sourceBucket = sourceBucket;
+				this.sourcePath = sourcePath;
+				this.versionId = versionId;
+				this.start = start;
+				this.end = end;
+				this.targetBucket = targetBucket;
+				this.targetPath = targetPath;
+				this.uploadId = uploadId;
+				this.partNumber = partNumber;
+				this.inflightSize = end - start + 1;
+			}
+
+			@Override
+			PartETag movePart() throws Exception {
+				long size = end - start + 1;
+				ObjectData data = null;
+				InputStream is = bufferedPart();
+				if (is == null) {
+					long startTime = System.currentTimeMillis();
+					data = getRange(sourceBucket, sourcePath, versionId, start, end);
+					if (data == null) {
+						return null;
+					}
+					if (rangedGetPlanner != null) {
+						rangedGetPlanner.onResponse(System.currentTimeMillis() - startTime);
+					}
+					is = readPart(data, size);
+				}
+
+				try {
+					String partETag = sendPart(targetBucket, targetPath, uploadId, is, size);
+					logger.info("{} - move part : {}, size : {}", path, partNumber, size);
+					Utils.getDBInstance().insertUploadPart(jobId, uploadId, partNumber, partETag);
+					return new PartETag(partNumber, partETag);
+				} finally {
+					if (data != null) {
+						data.close();
+					}
+				}
+			}
+		}
+
+		// uploads one part of a file, the parts of a file read from one channel at their own positions
+		class FilePartMover extends PartTask {
+			private FileChannel channel;
+			private long start;
+			private long length;
+			private String targetBucket;
+			private String targetPath;
+			private String uploadId;
+
+			FilePartMover(String path, FileChannel channel, long start, long length, String targetBucket, String targetPath, String uploadId, int partNumber) {
+				this.path = path;
+				this.channel = channel;
+				this.start = start;
+				this.length = length;
+				this.targetBucket = targetBucket;
+				this.targetPath = targetPath;
+				this.uploadId = uploadId;
+				this.partNumber = partNumber;
+				this.inflightSize = length;
+			}
+
+			@Override
+			PartETag movePart() throws Exception {
+				String partETag = sendPart(targetBucket, targetPath, uploadId, length, new Callable<InputStream>() {
+					@Override
+					public InputStream call() {
+						return Throttle.getInstance().wrap(new FileRangeInputStream(channel, start, length), true);
+					}
+				});
+				logger.info("{} - move part : {}, size : {}", path, partNumber, length);
+				Utils.getDBInstance().insertUploadPart(jobId, uploadId, partNumber, partETag);
+				return new PartETag(partNumber, partETag);
+			}
+		}
+
+		// multipart upload of a file, the owner moves at most file_part_thread_count parts of the file at once
+		private void moveFileMultipart(String path, String sourcePath, String targetBucket, String targetPath, long size) throws Exception {
+			File file = new File(sourcePath);
+			// the modified time tells whether a stopped upload still matches the file
+			String fileVersion = String.valueOf(file.lastModified());
+			long limitSize = Math.max(partSize, (size + MAX_PART_COUNT - 1) / MAX_PART_COUNT);
+			int inflight = Math.min(filePartThreadCount, partThreadCount);
+			logger.debug("send file multipart : {}, size {}, part size {}", path, size, limitSize);
+
+			Map<Integer, PartETag> parts = new TreeMap<Integer, PartETag>();
+			String uploadId = resumeMultipart(path, null, fileVersion, targetBucket, targetPath, size, limitSize, parts);
+			if (uploadId == null) {
+				ObjectMetadata objectMetadata = new ObjectMetadata();
+				objectMetadata.setContentType(Mimetypes.getInstance().getMimetype(file));
+				uploadId = startUpload(path, null, fileVersion, targetBucket, targetPath, objectMetadata, limitSize);
+			}
+
+			MultipartChecksum checksum = newChecksum(parts);
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				PartQueue queue = new PartQueue();
+				try {
+					int partNumber = 1;
+					for (long i = 0; i < size; i += limitSize, partNumber++) {
+						if (parts.containsKey(partNumber)) {
+							continue;
+						}
+						queue.add(new FilePartMover(path, channel, i, Math.min(limitSize, size - i), targetBucket, targetPath, uploadId, partNumber).withChecksum(checksum));
+					}
+					queue.start(inflight);
+					for (Future<PartETag> future : queue.getParts()) {
+						PartETag partETag = waitPart(future);
+						parts.put(partETag.getPartNumber(), partETag);
+					}
+				} finally {
+					queue.finish();
+				}
+			}
+
+			CompleteMultipartUploadResult completeMultipartUploadResult = targetRepository.completeMultipart(targetS3Client, targetBucket, targetPath, uploadId, new ArrayList<PartETag>(parts.values()));
+			Utils.getDBInstance().deleteUpload(jobId, path, null, uploadId);
+			verifyMultipart(path, null, checksum, completeMultipartUploadResult);
+		}
+
+		private MultipartChecksum newChecksum(Map<Integer, PartETag> doneParts) {
+			if (!isVerifyChecksum) {
+				return null;
+			}
+			MultipartChecksum checksum = new MultipartChecksum();
+			for (PartETag part : doneParts.values()) {
+				checksum.addPart(part.getPartNumber(), part.getETag());
+			}
+			return checksum;
+		}
+
+		// ETags of SSE-KMS and SSE-C objects are not the MD5 of the data
+		private boolean isMd5ETag(ServerSideEncryptionResult result) {
+			if (result == null) {
+				return true;
+			}
+			String algorithm = result.getSSEAlgorithm();
+			return (algorithm == null || SSEAlgorithm.AES256.getAlgorithm().equals(algorithm)) && result.getSSECustomerAlgorithm() == null;
+		}
+
+		// checks the MD5 read from the source against the source ETag and the target ETag, and keeps it
+		private void verifyObject(String path, String versionId, ChecksumInputStream is, String sourceETag, ServerSideEncryptionResult source, PutObjectResult target) throws ChecksumMismatchException {
+			String md5 = ChecksumInputStream.toHex(is.getMd5());
+			if (MultipartChecksum.isMd5(sourceETag) && isMd5ETag(source) && !md5.equalsIgnoreCase(sourceETag)) {
+				throw new ChecksumMismatchException(path + " : md5 " + md5 + " of the data read is not the source etag " + sourceETag);
+			}
+			if (MultipartChecksum.isMd5(target.getETag()) && isMd5ETag(target) && !md5.equalsIgnoreCase(target.getETag())) {
+				throw new ChecksumMismatchException(path + " : md5 " + md5 + " of the data read is not the target etag " + target.getETag());
+			}
+			saveChecksum(path, versionId, md5, is.isCrc() ? String.format("%08x", is.getCrc()) : null);
+		}
+
+		// checks the composite ETag of the parts against the ETag of the completed object, and keeps it
+		private void verifyMultipart(String path, String versionId, MultipartChecksum checksum, CompleteMultipartUploadResult result) throws ChecksumMismatchException {
+			if (checksum == null) {
+				return;
+			}
+			String composite = checksum.getETag();
+			String targetETag = result.getETag();
+			if (targetETag != null && targetETag.contains("-") && isMd5ETag(result) && !composite.equalsIgnoreCase(targetETag)) {
+				throw new ChecksumMismatchException(path + " : composite etag " + composite + " of the parts read is not the target etag " + targetETag);
+			}
+			saveChecksum(path, versionId, composite, checksum.getCrc());
+		}
+
+		private void saveChecksum(String path, String versionId, String md5, String crc) {
+			String value = crc == null ? md5 : md5 + " " + ChecksumInputStream.getCrcName() + ":" + crc;
+			if (isRerun) {
+				Utils.getDBInstance().updateObjectRerunChecksum(jobId, path, versionId, value);
+			} else {
+				Utils.getDBInstance().updateObjectChecksum(jobId, path, versionId, value);
+			}
+		}
+
+		// moves one segment of a swift large object, returns null if the segment does not exist
+		class SegmentMover extends PartTask {
+			private String container;
+			private String partPath;
+			private String targetBucket;
+			private String targetPath;
+			private String uploadId;
+
+			SegmentMover(String container, String partPath, String targetBucket, String targetPath, String uploadId, int partNumber) {
+				this.path = container + "/" + partPath;
+				this.container = container;
+				this.partPath = partPath;
+				this.targetBucket = targetBucket;
+				this.targetPath = targetPath;
+				this.uploadId = uploadId;
+				this.partNumber = partNumber;
+				// the size of a segment is known after the get
+				this.inflightSize = partSize;
+			}
+
+			@Override
+			PartETag movePart() throws Exception {
+				ObjectData data = null;
+				InputStream is = bufferedPart();
+				long size;
+				if (is != null) {
+					size = getBufferedSize();
+				} else {
+					data = sourceRepository.getObject(sourceClient, container, partPath, null);
+					if (data == null) {
+						return null;
+					}
+					size = data.getSize();
+					is = readPart(data, size);
+				}
+
+				try {
+					String partETag = sendPart(targetBucket, targetPath, uploadId, is, size);
+					return new PartETag(partNumber, partETag);
+				} finally {
+					if (data != null) {
+						data.close();
+					}
+				}
+			}
+		}
+
+		// copies one part of a large object inside the storage, no data goes through the mover
+		class PartCopier extends PartTask {
+			private String sourceBucket;
+			private String sourcePath;
+			private String versionId;
+			private String targetBucket;
+			private String targetPath;
+			private String uploadId;
+			private long start;
+			private long end;
+
+			PartCopier(String sourceBucket, String sourcePath, String versionId, String targetBucket, String targetPath, String uploadId, int partNumber, long start, long end) {
+				this.path = sourceBucket + "/" + sourcePath;
+				this.sourceBucket = sourceBucket;
+				this.sourcePath = sourcePath;
+				this.versionId = versionId;
+				this.targetBucket = targetBucket;
+				this.targetPath = targetPath;
+				this.uploadId = uploadId;
+				this.partNumber = partNumber;
+				this.start = start;
+				this.end = end;
+			}
+
+			@Override
+			PartETag movePart() throws Exception {
+				return targetRepository.copyPart(targetClient, sourceBucket, sourcePath, versionId, targetBucket, targetPath, uploadId, partNumber, start, end);
+			}
+		}
+
+		private void serverSideCopy(String path, String sourceBucket, String sourcePath, String versionId, String targetBucket, String targetPath, long size) throws Exception {
+			AccessControlList objectAcl = sourceRepository.getAcl(sourceS3Client, sourceBucket, sourcePath, versionId);
+
+			if (size <= MAX_COPY_OBJECT_SIZE) {
+				CopyObjectResult copyObjectResult = targetRepository.copyObject(targetS3Client, sourceBucket, sourcePath, versionId, targetBucket, targetPath);
+				if (objectAcl != null) {
+					targetRepository.setAcl(targetS3Client, targetBucket, targetPath, copyObjectResult.getVersionId(), objectAcl);
+				}
+				logger.debug("copy object : {}, size {}", path, size);
+				return;
+			}
+
+			// CopyObject is limited to 5GB, copy larger objects part by part
+			ObjectMetadata objectMetadata = sourceRepository.getMetadata(sourceS3Client, sourceBucket, sourcePath, versionId);
+			List<Tag> tagSet = sourceRepository.getTagging(sourceS3Client, sourceBucket, sourcePath, versionId);
+			long copyPartSize = Math.max(partSize, (size + MAX_PART_COUNT - 1) / MAX_PART_COUNT);
+			String uploadId = startUpload(path, versionId, null, targetBucket, targetPath, objectMetadata, copyPartSize);
+			logger.debug("copy multipart : {}, size {}, part size {}", path, size, copyPartSize);
+
+			List<PartETag> partList = new ArrayList<PartETag>();
+			PartQueue queue = new PartQueue();
+			try {
+				int partNumber = 1;
+				for (long i = 0; i < size; i += copyPartSize, partNumber++) {
+					long end = Math.min(i + copyPartSize, size) - 1;
+					queue.add(new PartCopier(sourceBucket, sourcePath, versionId, targetBucket, targetPath, uploadId, partNumber, i, end));
+				}
+				queue.start(partThreadCount);
+				for (Future<PartETag> future : queue.getParts()) {
+					partList.add(waitPart(future));
+				}
+			} finally {
+				queue.finish();
+			}
+
+			CompleteMultipartUploadResult completeMultipartUploadResult = targetRepository.completeMultipart(targetS3Client, targetBucket, targetPath, uploadId, partList);
+			Utils.getDBInstance().deleteUpload(jobId, path, versionId, uploadId);
+			if (objectAcl != null) {
+				targetRepository.setAcl(targetS3Client, targetBucket, targetPath, completeMultipartUploadResult.getVersionId(), objectAcl);
+			}
+			if (tagSet != null && !tagSet.isEmpty()) {
+				targetRepository.setTagging(targetS3Client, targetBucket, targetPath, completeMultipartUploadResult.getVersionId(), tagSet);
+			}
+		}
+
+		// continues the upload left by a stopped job if the source object and the part size did not change,
+		// the parts that are already on the target are put in doneParts
+		private String resumeMultipart(String path, String versionId, String etag, String targetBucket, String targetPath, long size, long limitSize, Map<Integer, PartETag> doneParts) {
+			Map<String, String> upload = Utils.getDBInstance().getUpload(jobId, path, versionId);
+			if (upload == null) {
+				return null;
+			}
+
+			String uploadId = upload.get(MoverDB.UPLOADS_TABLE_COLUMN_UPLOAD_ID);
+			long uploadPartSize = Long.parseLong(upload.get(MoverDB.UPLOADS_TABLE_COLUMN_PART_SIZE));
+			String uploadETag = upload.get(MoverDB.UPLOADS_TABLE_COLUMN_ETAG);
+			if (uploadPartSize != limitSize || (etag != null && !etag.equals(uploadETag))) {
+				logger.info("abort multipart : {}, the source object or the part size changed. upload id : {}", path, uploadId);
+				abortUpload(path, versionId);
+				return null;
+			}
+
+			try {
+				Map<Integer, String> savedParts = Utils.getDBInstance().getUploadParts(jobId, uploadId);
+				for (PartSummary part : targetRepository.listParts(targetS3Client, targetBucket, targetPath, uploadId)) {
+					int partNumber = part.getPartNumber();
+					long partLength = Math.min(limitSize, size - (partNumber - 1) * limitSize);
+					String savedETag = savedParts.get(partNumber);
+					if (part.getSize() == partLength && (savedETag == null || savedETag.equals(part.getETag()))) {
+						doneParts.put(partNumber, new PartETag(partNumber, part.getETag()));
+					}
+				}
+			} catch (AmazonServiceException ase) {
+				// NoSuchUpload, it was completed or aborted
+				logger.info("can't resume multipart : {}, {}. upload id : {}", path, ase.getErrorCode(), uploadId);
+				Utils.getDBInstance().deleteUpload(jobId, path, versionId, uploadId);
+				return null;
+			}
+
+			logger.info("resume multipart : {}, {} parts are already moved. upload id : {}", path, doneParts.size(), uploadId);
+			return uploadId;
+		}
+
+		// every upload is recorded, so that it can be resumed or aborted later
+		private String startUpload(String path, String versionId, String etag, String targetBucket, String targetPath, ObjectMetadata objectMetadata, long uploadPartSize) {
+			// an upload of an earlier attempt that is not resumed
+			abortUpload(path, versionId);
+			String uploadId = targetRepository.startMultipart(targetS3Client, targetBucket, targetPath, objectMetadata);
+			Utils.getDBInstance().insertUpload(jobId, path, versionId, targetBucket, targetPath, uploadId, uploadPartSize, etag);
+			return uploadId;
+		}
+
+		private void abortUpload(String path, String versionId) {
+			if (versionId != null && versionId.compareTo("0") == 0) {
+				versionId = null;
+			}
+			Map<String, String> upload = Utils.getDBInstance().getUpload(jobId, path, versionId);
+			if (upload == null) {
+				return;
+			}
+
+			String uploadId = upload.get(MoverDB.UPLOADS_TABLE_COLUMN_UPLOAD_ID);
+			try {
+				targetRepository.abortMultipart(targetS3Client, upload.get(MoverDB.UPLOADS_TABLE_COLUMN_TARGET_BUCKET), upload.get(MoverDB.UPLOADS_TABLE_COLUMN_TARGET_PATH), uploadId);
+				logger.info("abort multipart : {}, upload id : {}", path, uploadId);
+			} catch (AmazonClientException ace) {
+				logger.warn("failed to abort multipart : {}, upload id : {} - {}", path, uploadId, ace.getMessage());
+			}
+			Utils.getDBInstance().deleteUpload(jobId, path, versionId, uploadId);
+		}
+
+		private PartETag waitPart(Future<PartETag> future) throws Exception {
+			try {
+				return future.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof Exception) {
+					throw (Exception) cause;
+				}
+				throw e;
+			}
+		}
+
+		private void cancelParts(List<Future<PartETag>> futures) {
+			for (Future<PartETag> future : futures) {
+				future.cancel(true);
+			}
+		}
+
+		class QueuedPart extends FutureTask<PartETag> {
+			private final PartTask task;
+
+			QueuedPart(PartTask task) {
+				super(task);
+				this.task = task;
+			}
+
+			// a part taken by another Mover is moved with the connections of that Mover
+			void runOn(AmazonS3 sourceClient, AmazonS3 targetClient) {
+				task.setClients(sourceClient, targetClient);
+				run();
+			}
+		}
+
+		// the parts of one multipart upload. The owner runs them on its part threads and completes the upload,
+		// with part_stealing the waiting parts can also be taken by Movers that have nothing left to move
+		class PartQueue {
+			private final List<Future<PartETag>> parts = new ArrayList<Future<PartETag>>();
+			private final ConcurrentLinkedQueue<QueuedPart> waiting = new ConcurrentLinkedQueue<QueuedPart>();
+
+			void add(PartTask task) {
+				QueuedPart part = new QueuedPart(task);
+				parts.add(part);
+				waiting.add(part);
+			}
+
+			QueuedPart poll() {
+				return waiting.poll();
+			}
+
+			List<Future<PartETag>> getParts() {
+				return parts;
+			}
+
+			void start(int threads) {
+				if (isPartStealing) {
+					partQueues.add(this);
+				}
+				int count = Math.min(threads, parts.size());
+				for (int i = 0; i < count; i++) {
+					partExecutor.execute(new Runnable() {
+						@Override
+						public void run() {
+							QueuedPart part;
+							while ((part = poll()) != null) {
+								part.run();
+								if (part.isCancelled()) {
+									// the upload failed, the rest of the parts are cancelled too
+									return;
+								}
+							}
+						}
+					});
+				}
+			}
+
+			void finish() {
+				partQueues.remove(this);
+				waiting.clear();
+				cancelParts(parts);
+			}
+		}
+
+		private QueuedPart pollWaitingPart() {
+			for (PartQueue queue : partQueues) {
+				QueuedPart part = queue.poll();
+				if (part != null) {
+					return part;
+				}
+			}
+			return null;
+		}
+
+		// nothing left to move, help with the uploads of the other Movers until all of them are done
+		private void stealParts() throws InterruptedException {
+			List<Future<?>> stealers = new ArrayList<Future<?>>();
+			for (int i = 0; i < partThreadCount; i++) {
+				stealers.add(partExecutor.submit(new Runnable() {
+					@Override
+					public void run() {
+						stealLoop();
+					}
+				}));
+			}
+			for (Future<?> stealer : stealers) {
+				try {
+					stealer.get();
+				} catch (ExecutionException e) {
+					Utils.logging(logger, e);
+				}
+			}
+		}
+
+		private void stealLoop() {
+			MDC.put("logFileName", "ifs_mover." + jobId + ".log");
+			try {
+				while (true) {
+					QueuedPart part = pollWaitingPart();
+					if (part == null) {
+						if (movingCount.get() == 0) {
+							return;
+						}
+						Thread.sleep(PART_STEALING_INTERVAL);
+						continue;
+					}
+					logger.debug("thread-{} takes {} part {}", threadNumber, part.task.path, part.task.partNumber);
+					part.runOn(sourceS3Client, targetS3Client);
+					if (part.isCancelled()) {
+						// the owner cancelled the part while it was running
+						Thread.interrupted();
+					}
+				}
+			} catch (InterruptedException e) {
+				// the job is stopped
+			} finally {
+				MDC.remove("logFileName");
+			}
+		}
+
+		private void finishMoving() {
+			if (!isFinished) {
+				isFinished = true;
+				movingCount.decrementAndGet();
+			}
 		}
 		
-		private MoveResult moveObject(String path, boolean isDelete, boolean isLatest, boolean isFile, String versionId, String etag, String multipartInfo, long size) {
+		// errors are logged and thrown to retryMoveObject, which decides whether to try again
+		private MoveResult moveObject(String path, boolean isDelete, boolean isLatest, boolean isFile, String versionId, String etag, String multipartInfo, long size) throws Exception {
 			String sourcePath = null;
 			String targetPath = null;
 			String sourceBucket = null;
@@ -376,6 +1356,7 @@ public class ObjectMover {
 				versionId = null;
 			}
 
+			int inflightPermits = 0;
 			try {
 				if (isDelete) {
 					if (isLatest) {
@@ -430,33 +1411,44 @@ public class ObjectMover {
 					}
 
 					if (isFile) {
-						if (multipartInfo != null && !multipartInfo.isEmpty()) {
+						if (isServerSideCopy) {
+							serverSideCopy(path, sourceBucket, sourcePath, versionId, targetBucket, targetPath, size);
+						} else if (multipartInfo != null && !multipartInfo.isEmpty()) {
 							// for swift large file (more than 5G)
-							String uploadId = targetRepository.startMultipart(targetS3Client, targetBucket, targetPath, null);
+							String uploadId = startUpload(path, versionId, null, targetBucket, targetPath, null, 0);
 							List<PartETag> partList = new ArrayList<PartETag>();
 							String[] multiPath = multipartInfo.split("/", 2);
 							int partNumber = 0;
-							ObjectData data = null;
-							do {
-								String partPath = String.format("%08d", partNumber++);
-								partPath = multiPath[1] + partPath;
-								if (data != null) {
-									data.getS3Object().close();
-								}
-								data = sourceRepository.getObject(sourceS3Client, multiPath[0], partPath, null);
-								if (data != null) {
-									String partETag = targetRepository.uploadPart(targetS3Client, targetBucket, targetPath, uploadId, data.getInputStream(), partNumber, data.getSize());
-									partList.add(new PartETag(partNumber, partETag));
-									data.getInputStream().close();
+							LinkedList<Future<PartETag>> futures = new LinkedList<Future<PartETag>>();
+							MultipartChecksum checksum = isVerifyChecksum ? new MultipartChecksum() : null;
+							try {
+								// the number of segments is unknown, keep partThreadCount segments in flight until one is missing
+								while (true) {
+									while (futures.size() < partThreadCount) {
+										String partPath = multiPath[1] + String.format("%08d", partNumber);
+										partNumber++;
+										futures.add(partExecutor.submit(new SegmentMover(multiPath[0], partPath, targetBucket, targetPath, uploadId, partNumber).withChecksum(checksum)));
+									}
+									PartETag partETag = waitPart(futures.removeFirst());
+									if (partETag == null) {
+										break;
+									}
+									partList.add(partETag);
 								}
-							} while (data != null);
+							} finally {
+								cancelParts(futures);
+							}
 
 							CompleteMultipartUploadResult completeMultipartUploadResult = targetRepository.completeMultipart(targetS3Client, targetBucket, targetPath, uploadId, partList);
+							Utils.getDBInstance().deleteUpload(jobId, path, versionId, uploadId);
+							verifyMultipart(path, versionId, checksum, completeMultipartUploadResult);
 							// if (tagSet != null && tagSet.size() > 0) {
 							// 	targetRepository.setTagging(targetBucket, targetPath, completeMultipartUploadResult.getVersionId(), tagSet);
 							// }
 							logger.info("move success : {}", path);
-						} else if ((!type.equalsIgnoreCase(Repository.IFS_FILE) && size >= useMultipartSize)) {
+						} else if (type.equalsIgnoreCase(Repository.IFS_FILE) && size >= useMultipartSize) {
+							moveFileMultipart(path, sourcePath, targetBucket, targetPath, size);
+						} else if (!type.equalsIgnoreCase(Repository.IFS_FILE) && (size >= useMultipartSize || (rangedGetPlanner != null && rangedGetPlanner.isSplit(size)))) {
 							// send multipart
 							if (versionId != null && !versionId.isEmpty()) {
 								logger.debug("send multipart : {}:{}, size {}", path, versionId, size);
@@ -465,55 +1457,92 @@ public class ObjectMover {
 							}
 							
 							long limitSize = partSize;
+							if (size < useMultipartSize) {
+								// medium object, concurrent ranged gets
+								limitSize = rangedGetPlanner.getSplitSize(size);
+								logger.debug("ranged get : {}, split size {}, rtt {} ms", path, limitSize, rangedGetPlanner.getRtt());
+							}
 
 							ObjectMetadata objectMetadata = sourceRepository.getMetadata(sourceS3Client, sourceBucket, sourcePath, versionId);
 							AccessControlList objectAcl = sourceRepository.getAcl(sourceS3Client, sourceBucket, sourcePath, versionId);
 							List<Tag> tagSet = sourceRepository.getTagging(sourceS3Client, sourceBucket, sourcePath, versionId);
-							String uploadId = targetRepository.startMultipart(targetS3Client, targetBucket, targetPath, objectMetadata);
-							List<PartETag> partList = new ArrayList<PartETag>();
+							Map<Integer, PartETag> parts = new TreeMap<Integer, PartETag>();
+							String uploadId = resumeMultipart(path, versionId, etag, targetBucket, targetPath, size, limitSize, parts);
+							if (uploadId == null) {
+								uploadId = startUpload(path, versionId, etag, targetBucket, targetPath, objectMetadata, limitSize);
+							}
+							PartQueue queue = new PartQueue();
+							MultipartChecksum checksum = newChecksum(parts);
 							int partNumber = 1;
 
-							for (long i = 0; i < size; i += limitSize, partNumber++) {
-								long start = i;
-								long end = i + limitSize - 1;
-								if (end >= size) {
-									end = size - 1;
-								}
+							try {
+								for (long i = 0; i < size; i += limitSize, partNumber++) {
+									if (parts.containsKey(partNumber)) {
+										continue;
+									}
 
-								ObjectData data = sourceRepository.getObject(sourceS3Client, sourceBucket, sourcePath, versionId, start, end);
+									long start = i;
+									long end = i + limitSize - 1;
+									if (end >= size) {
+										end = size - 1;
+									}
 
-								if (data != null) {
-									String partETag = targetRepository.uploadPart(targetS3Client, targetBucket, targetPath, uploadId, data.getInputStream(), partNumber, data.getSize());
-									partList.add(new PartETag(partNumber, partETag));
-									data.close();
-									logger.info("{} - move part : {}, size : {}", path, partNumber, data.getSize());
+									queue.add(new PartMover(path, sourceBucket, sourcePath, versionId, start, end, targetBucket, targetPath, uploadId, partNumber).withChecksum(checksum));
 								}
+								queue.start(partThreadCount);
+
+								for (Future<PartETag> future : queue.getParts()) {
+									PartETag partETag = waitPart(future);
+									if (partETag != null) {
+										parts.put(partETag.getPartNumber(), partETag);
+									}
+								}
+							} finally {
+								queue.finish();
 							}
 
-							CompleteMultipartUploadResult completeMultipartUploadResult = targetRepository.completeMultipart(targetS3Client, targetBucket, targetPath, uploadId, partList);
+							CompleteMultipartUploadResult completeMultipartUploadResult = targetRepository.completeMultipart(targetS3Client, targetBucket, targetPath, uploadId, new ArrayList<PartETag>(parts.values()));
+							Utils.getDBInstance().deleteUpload(jobId, path, versionId, uploadId);
+							verifyMultipart(path, versionId, checksum, completeMultipartUploadResult);
 							targetRepository.setAcl(targetS3Client, targetBucket, targetPath, completeMultipartUploadResult.getVersionId(), objectAcl);
 
 							if (tagSet != null && !tagSet.isEmpty()) {
 								targetRepository.setTagging(targetS3Client, targetBucket, targetPath, completeMultipartUploadResult.getVersionId(), tagSet);
 							}
 						} else {
+							inflightPermits = inflightBytes.acquire(size);
 							ObjectData data = null;
 							String s3ETag = null;
 							PutObjectResult putObjectResult = null;
 							List<Tag> tagSet = null;
+							ChecksumInputStream checksumStream = null;
 							if (type.equalsIgnoreCase(Repository.IFS_FILE)) {
 								data = sourceRepository.getObject(sourcePath);
+								if (isVerifyChecksum) {
+									// read the file as a stream so that the checksum is computed on the way
+									checksumStream = new ChecksumInputStream(data.getInputStream() != null ? data.getInputStream() : new FileInputStream(data.getFile()), isChecksumCrc);
+									data.setInputStream(checksumStream);
+									data.setFile(null);
+								}
 								putObjectResult = targetRepository.putObject(targetS3Client, isFile, targetBucket, targetPath, data, data.getSize());
 								s3ETag = putObjectResult.getETag();
 								data.close();
 							} else {
 								tagSet = sourceRepository.getTagging(sourceS3Client, sourceBucket, sourcePath, versionId);
 								if (size > 0) {
+									long startTime = System.currentTimeMillis();
 									data = sourceRepository.getObject(sourceS3Client, sourceBucket, sourcePath, versionId, 0);
 									if (data == null) {
 										logger.warn("not found : {} {}", sourceBucket, sourcePath);
 										return MoveResult.MOVE_FAILURE;
 									}
+									if (rangedGetPlanner != null) {
+										rangedGetPlanner.onResponse(System.currentTimeMillis() - startTime);
+									}
+									if (isVerifyChecksum) {
+										checksumStream = new ChecksumInputStream(data.getInputStream(), isChecksumCrc);
+										data.setInputStream(checksumStream);
+									}
 									putObjectResult = targetRepository.putObject(targetS3Client, isFile, targetBucket, targetPath, data, data.getSize());
 									s3ETag = putObjectResult.getETag();
 									data.close();
@@ -528,6 +1557,14 @@ public class ObjectMover {
 								}
 							}
 
+							if (checksumStream != null) {
+								if (type.equalsIgnoreCase(Repository.IFS_FILE)) {
+									verifyObject(path, versionId, checksumStream, null, null, putObjectResult);
+								} else {
+									verifyObject(path, versionId, checksumStream, etag, data.getMetadata(), putObjectResult);
+								}
+							}
+
 							if (tagSet != null && !tagSet.isEmpty()) {
 								targetRepository.setTagging(targetS3Client, targetBucket, targetPath, putObjectResult.getVersionId(), tagSet);
 							}
@@ -580,27 +1617,138 @@ public class ObjectMover {
 				} else {
 					logger.warn("{} {} - {}", path, ase.getErrorCode(), ase.getErrorMessage());
 				}
-				return MoveResult.MOVE_FAILURE;
+				throw ase;
 			} catch (AmazonClientException ace) {
 				Utils.logging(logger, ace);
 				logger.warn("{} {}", path, ace.getMessage());
-				return MoveResult.MOVE_FAILURE;
+				throw ace;
 			} catch (Exception e) {
 				Utils.logging(logger, e);
-				return MoveResult.MOVE_FAILURE;
+				throw e;
+			} finally {
+				inflightBytes.release(inflightPermits);
 			}
 
 			return MoveResult.MOVE_SUCCESS;
 		}
 	
-		private MoveResult retryMoveObject(String path, boolean isDelete, boolean isLatest, boolean isFile, String versionId, String etag, String multipartInfo, long size) {
-			for (int i = 0; i < Utils.RETRY_COUNT; i++) {
-				MoveResult moveResult = moveObject(path, isDelete, isLatest, isFile, versionId, etag, multipartInfo, size);
-				if (moveResult != MoveResult.MOVE_FAILURE) {
-					return moveResult;
+		private MoveResult retryMoveObject(String path, boolean isDelete, boolean isLatest, boolean isFile, String versionId, String etag, String multipartInfo, long size) throws InterruptedException {
+			retryPolicy.onAttempt();
+			for (int attempt = 0; ; attempt++) {
+				try {
+					return moveObject(path, isDelete, isLatest, isFile, versionId, etag, multipartInfo, size);
+				} catch (InterruptedException e) {
+					throw e;
+				} catch (MoveRetryPolicy.RetriesExhaustedException e) {
+					// a part was retried as far as the policy allows, the object is not tried again
+					abortUpload(path, versionId);
+					return MoveResult.MOVE_FAILURE;
+				} catch (Exception e) {
+					MoveRetryPolicy.ErrorClass errorClass = retryPolicy.classify(e);
+					if (errorClass == MoveRetryPolicy.ErrorClass.THROTTLE && controller != null) {
+						controller.onThrottle();
+					}
+					long delay = retryPolicy.nextDelay(errorClass, attempt);
+					if (delay < 0) {
+						abortUpload(path, versionId);
+						return MoveResult.MOVE_FAILURE;
+					}
+					logger.info("retry {} after {} ms ({}, attempt {})", path, delay, errorClass, attempt + 1);
+					backoff(currentLease.get(), delay);
+				}
+			}
+		}
+
+		// the controller permit is not held while the object or one of its parts waits to be retried
+		private void backoff(ConcurrencyController.Lease lease, long delay) throws InterruptedException {
+			if (lease != null) {
+				lease.sleep(delay);
+			} else {
+				Thread.sleep(delay);
+			}
+		}
+
+		private void moveAndUpdate(String path, boolean isDelete, boolean isLatest, boolean isFile, String versionId, String etag, String multipartInfo, long size) throws InterruptedException {
+			MoveResult moveResult = null;
+			if (controller != null) {
+				ConcurrencyController.Lease lease = controller.lease();
+				currentLease.set(lease);
+				long moveStart = System.currentTimeMillis();
+				try {
+					moveResult = retryMoveObject(path, isDelete, isLatest, isFile, versionId, etag, multipartInfo, size);
+				} finally {
+					currentLease.remove();
+					lease.close();
+				}
+				if (moveResult == MoveResult.MOVE_SUCCESS) {
+					controller.onMoved(size, System.currentTimeMillis() - moveStart);
+				}
+			} else {
+				moveResult = retryMoveObject(path, isDelete, isLatest, isFile, versionId, etag, multipartInfo, size);
+			}
+
+			switch (moveResult) {
+			case MOVE_SUCCESS:
+				if (versionId != null && !versionId.isEmpty()) {
+					logger.info("move success : {}:{}", path, versionId);
+				} else {
+					logger.info("move success : {}", path);
+				}
+				Utils.updateJobResult(jobId, true, path, versionId, size, isRerun);
+				break;
+			case MOVE_FAILURE:
+				if (versionId != null && !versionId.isEmpty()) {
+					logger.error("move failed : {}:{}", path, versionId);
+				} else {
+					logger.error("move failed : {}", path);
+				}
+				Utils.updateJobResult(jobId, false, path, versionId, size, isRerun);
+				break;
+			case DELETE_SUCCESS:
+				if (versionId != null && !versionId.isEmpty()) {
+					logger.info("delete success : {}:{}", path, versionId);
+				} else {
+					logger.info("delete success : {}", path);
+				}
+				Utils.getDBInstance().updateJobDeleted(jobId, size);
+				break;
+			case SKIP:
+				if (versionId != null && !versionId.isEmpty()) {
+					logger.info("skip : {}:{}", path, versionId);
+				} else {
+					logger.info("skip : {}", path);
+				}
+				Utils.updateJobSkipInfo(jobId, size);
+				break;
+			default:
+				break;
+			}
+		}
+
+		// moves one small object on its own thread, at most smallObjectThreads of them per mover
+		class SmallObjectMove implements Runnable {
+			private MoveData moveData;
+			private String multipartInfo;
+
+			SmallObjectMove(MoveData moveData, String multipartInfo) {
+				this.moveData = moveData;
+				this.multipartInfo = multipartInfo;
+			}
+
+			@Override
+			public void run() {
+				MDC.put("logFileName", "ifs_mover." + jobId + ".log");
+				try {
+					moveAndUpdate(moveData.getPath(), moveData.isDelete(), moveData.isLatest(), moveData.isFile(), moveData.getVersionId(), moveData.getETag(), multipartInfo, moveData.getSize());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (Exception e) {
+					Utils.logging(logger, e);
+				} finally {
+					smallObjectPermits.release();
+					MDC.remove("logFileName");
 				}
 			}
-			return MoveResult.MOVE_FAILURE;
 		}
 
 		@Override
@@ -609,26 +1757,13 @@ public class ObjectMover {
 				MDC.clear();
 				MDC.put("logFileName", "ifs_mover." + jobId + ".log");
 
-				long maxSequence = Utils.getDBInstance().getMaxSequence(jobId);
-				long sequence = threadNumber * GET_OBJECTS_LIMIT;
-
 				while (true) {
-					long start = System.currentTimeMillis();
-					List<MoveData> moveList = null;
-					if (!isRerun) {
-						moveList = Utils.getDBInstance().getToMoveObjectsInfo(jobId, sequence, GET_OBJECTS_LIMIT);
-					} else {
-						moveList = Utils.getDBInstance().getToRerunObjectsInfo(jobId, sequence, GET_OBJECTS_LIMIT);
-					}
-						
-					long end = System.currentTimeMillis();
-					logger.info("getToMoveObjectsInfo : {}ms, list size : {}", end - start, moveList.size());
-					
-					if (moveList.isEmpty() && sequence >= maxSequence) {
+					List<MoveData> moveList = dispatcher.take(lane);
+					if (moveList == null) {
 						break;
 					}
 
-					start = System.currentTimeMillis();
+					long start = System.currentTimeMillis();
 					for (MoveData moveData : moveList) {
 						boolean skipCheck = moveData.isSkipCheck();
 						if (skipCheck) {
@@ -670,46 +1805,16 @@ public class ObjectMover {
 
 						logger.debug("path:{}, versionId:{}, size:{}", path, versionId, size);
 
-						switch (retryMoveObject(path, isDelete, isLatest, isFile, versionId, etag, multipartInfo, size)) {
-						case MOVE_SUCCESS:
-							if (versionId != null && !versionId.isEmpty()) {
-								logger.info("move success : {}:{}", path, versionId);
-							} else {
-								logger.info("move success : {}", path);
-							}
-							Utils.updateJobResult(jobId, true, path, versionId, size, isRerun);
-							break;
-						case MOVE_FAILURE:
-							if (versionId != null && !versionId.isEmpty()) {
-								logger.error("move failed : {}:{}", path, versionId);
-							} else {
-								logger.error("move failed : {}", path);
-							}
-							Utils.updateJobResult(jobId, false, path, versionId, size, isRerun);
-							break;
-						case DELETE_SUCCESS:
-							if (versionId != null && !versionId.isEmpty()) {
-								logger.info("delete success : {}:{}", path, versionId);
-							} else {
-								logger.info("delete success : {}", path);
-							}
-							Utils.getDBInstance().updateJobDeleted(jobId, size);
-							break;
-						case SKIP:
-							if (versionId != null && !versionId.isEmpty()) {
-								logger.info("skip : {}:{}", path, versionId);
-							} else {
-								logger.info("skip : {}", path);
-							}
-							Utils.updateJobSkipInfo(jobId, size);
-							break;
-						default:
-							break;
+						if (smallObjectExecutor != null && !isDelete && isFile && multipartInfo == null && size < useMultipartSize
+							&& (rangedGetPlanner == null || !rangedGetPlanner.isSplit(size))) {
+							smallObjectPermits.acquire();
+							smallObjectExecutor.execute(new SmallObjectMove(moveData, multipartInfo));
+						} else {
+							moveAndUpdate(path, isDelete, isLatest, isFile, versionId, etag, multipartInfo, size);
 						}
 					}
-					end = System.currentTimeMillis();
+					long end = System.currentTimeMillis();
 					logger.info("move time: {}ms, list size : {}", end - start, moveList.size());
-					sequence += (threadCount * GET_OBJECTS_LIMIT);
 
 					if (isVersioning) {
 						if (latestList.size() >= GET_OBJECTS_LIMIT) {
@@ -721,6 +1826,12 @@ public class ObjectMover {
 					}
 				}
 
+				if (smallObjectExecutor != null) {
+					// wait for the small objects still moving
+					smallObjectPermits.acquire(smallObjectThreads);
+					smallObjectPermits.release(smallObjectThreads);
+				}
+
 				if (isVersioning) {
 					if (!latestList.isEmpty()) {
 						moveLatestObjects(true);
@@ -730,17 +1841,29 @@ public class ObjectMover {
 					}
 				}
 
-				logger.info("thread-{} finished", threadNumber);
+				if (dispatcher.getLaneCount() > 1) {
+					logger.info("thread-{} ({} lane) finished", threadNumber, MoveDispatcher.LANE_NAMES[lane]);
+				} else {
+					logger.info("thread-{} finished", threadNumber);
+				}
 
-				
+				finishMoving();
+				if (isPartStealing) {
+					stealParts();
+				}
 			} catch (Exception e) {
 				Utils.logging(logger, e);
 			} finally {
+				finishMoving();
+				partExecutor.shutdownNow();
+				if (smallObjectExecutor != null) {
+					smallObjectExecutor.shutdownNow();
+				}
 				MDC.remove("logFileName");
 			}
 		}
 
-		private void moveLatestObjects(boolean last) {
+		private void moveLatestObjects(boolean last) throws InterruptedException {
 			for (Iterator<MoveData> iterator = latestList.iterator(); iterator.hasNext();) {
 				MoveData jobInfo = iterator.next();
 				boolean isDelete = jobInfo.isDelete();
@@ -787,7 +1910,7 @@ public class ObjectMover {
 			}
 		}
 
-		private void moveDeletedObjects(boolean last) {
+		private void moveDeletedObjects(boolean last) throws InterruptedException {
 			for (Iterator<MoveData> iterator = deletedList.iterator(); iterator.hasNext();) {
 				MoveData jobInfo = iterator.next();
 				boolean isDelete = jobInfo.isDelete();
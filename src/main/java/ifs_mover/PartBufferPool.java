@@ -0,0 +1,113 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Direct buffers of part_size for parts of multipart objects, at most part_buffer_memory in total.
+// A part is read from the source into a buffer and the source connection is closed, then it is uploaded
+// from the buffer, again if the upload fails. When all buffers are in use, the part readers wait.
+// Buffers are allocated when first needed and kept for reuse, they count against -XX:MaxDirectMemorySize.
+public class PartBufferPool {
+	private static final Logger logger = LoggerFactory.getLogger(PartBufferPool.class);
+
+	private final int bufferSize;
+	private final int bufferCount;
+	private final Semaphore permits;
+	private final ConcurrentLinkedQueue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+	public PartBufferPool(long bufferSize, long memory) {
+		this.bufferSize = (int) Math.min(bufferSize, Integer.MAX_VALUE);
+		bufferCount = (int) Math.max(1, memory / this.bufferSize);
+		permits = new Semaphore(bufferCount, true);
+		logger.info("part buffers : {} x {} bytes", bufferCount, this.bufferSize);
+	}
+
+	public boolean fits(long size) {
+		return size <= bufferSize;
+	}
+
+	public ByteBuffer acquire() throws InterruptedException {
+		permits.acquire();
+		ByteBuffer buffer = freeBuffers.poll();
+		if (buffer == null) {
+			buffer = ByteBuffer.allocateDirect(bufferSize);
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	public void release(ByteBuffer buffer) {
+		freeBuffers.offer(buffer);
+		permits.release();
+	}
+
+	// reads the remaining bytes of the buffer, mark/reset lets the SDK send them again
+	public static class BufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		public BufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer.duplicate();
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public long skip(long n) {
+			int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + skipped);
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+
+		@Override
+		public boolean markSupported() {
+			return true;
+		}
+
+		@Override
+		public synchronized void mark(int readlimit) {
+			buffer.mark();
+		}
+
+		@Override
+		public synchronized void reset() {
+			buffer.reset();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+// Splits medium objects (ranged_get_min_size up to use_multipart) into concurrent ranged GETs.
+// One stream moves about one TCP window per round trip, so the slower the source answers,
+// the more streams an object needs. The response time of source GETs is kept as a moving average.
+public class RangedGetPlanner {
+	private static final long MEGA_BYTES = 1024 * 1024;
+	// S3 allows 5MB parts, keep some room so a part is worth its request
+	private static final long MIN_SPLIT_SIZE = 8 * MEGA_BYTES;
+	// one more stream for every RTT_PER_STREAM ms of response time
+	private static final long RTT_PER_STREAM = 10;
+	private static final int MIN_STREAMS = 2;
+	private static final double EWMA_WEIGHT = 0.2;
+
+	private final long minSize;
+	private final long maxSize;
+	private final int maxStreams;
+	private double rtt = -1;
+
+	public RangedGetPlanner(long minSize, long maxSize, int maxStreams) {
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.maxStreams = Math.max(1, maxStreams);
+	}
+
+	public boolean isSplit(long size) {
+		return size >= minSize && size < maxSize && size >= MIN_SPLIT_SIZE * 2;
+	}
+
+	// response time in ms of a source GET, until the headers are received
+	public synchronized void onResponse(long millis) {
+		if (rtt < 0) {
+			rtt = millis;
+		} else {
+			rtt = rtt * (1 - EWMA_WEIGHT) + millis * EWMA_WEIGHT;
+		}
+	}
+
+	public synchronized long getRtt() {
+		return rtt < 0 ? 0 : Math.round(rtt);
+	}
+
+	public int getStreams() {
+		long streams = 1 + getRtt() / RTT_PER_STREAM;
+		return (int) Math.min(maxStreams, Math.max(MIN_STREAMS, streams));
+	}
+
+	// the part size that spreads the object over the streams, rounded up to 1MB
+	public long getSplitSize(long size) {
+		long splitSize = (size + getStreams() - 1) / getStreams();
+		splitSize = (splitSize + MEGA_BYTES - 1) / MEGA_BYTES * MEGA_BYTES;
+		return Math.max(MIN_SPLIT_SIZE, splitSize);
+	}
+}
@@ -0,0 +1,245 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+package ifs_mover;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Calendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Bandwidth and request rate limits shared by all threads, separately for the source and the target.
+// If limit_schedule is set (e.g. 09:00-18:00), the limits only apply in that time of day.
+public class Throttle {
+	private static final Logger logger = LoggerFactory.getLogger(Throttle.class);
+
+	private static final long MEGA_BYTES = 1024 * 1024;
+	private static final long SCHEDULE_CHECK_INTERVAL = 1000;
+
+	private TokenBucket sourceBytes;
+	private TokenBucket sourceRequests;
+	private TokenBucket targetBytes;
+	private TokenBucket targetRequests;
+
+	private long sourceBandwidth;
+	private long sourceRequestRate;
+	private long targetBandwidth;
+	private long targetRequestRate;
+	private int scheduleStart;
+	private int scheduleEnd;
+	private boolean isScheduled;
+	private boolean isInSchedule;
+	private volatile long lastScheduleCheck;
+
+	public static Throttle getInstance() {
+		return LazyHolder.INSTANCE;
+	}
+
+	private static class LazyHolder {
+		private static final Throttle INSTANCE = new Throttle(MoverConfig.getInstance());
+	}
+
+	private Throttle(MoverConfig moverConfig) {
+		sourceBandwidth = moverConfig.getSourceBandwidth() * MEGA_BYTES;
+		sourceRequestRate = moverConfig.getSourceRequestRate();
+		targetBandwidth = moverConfig.getTargetBandwidth() * MEGA_BYTES;
+		targetRequestRate = moverConfig.getTargetRequestRate();
+
+		sourceBytes = new TokenBucket();
+		sourceRequests = new TokenBucket();
+		targetBytes = new TokenBucket();
+		targetRequests = new TokenBucket();
+
+		int[] schedule = parseSchedule(moverConfig.getLimitSchedule());
+		isScheduled = schedule != null;
+		if (isScheduled) {
+			scheduleStart = schedule[0];
+			scheduleEnd = schedule[1];
+		}
+		isInSchedule = !isScheduled;
+		lastScheduleCheck = 0;
+		applyRates(isInSchedule);
+
+		if (sourceBandwidth > 0 || sourceRequestRate > 0 || targetBandwidth > 0 || targetRequestRate > 0) {
+			logger.info("throttle source : {} MB/s, {} req/s, target : {} MB/s, {} req/s, schedule : {}",
+				moverConfig.getSourceBandwidth(), sourceRequestRate, moverConfig.getTargetBandwidth(), targetRequestRate,
+				isScheduled ? moverConfig.getLimitSchedule() : "always");
+		}
+	}
+
+	// HH:mm-HH:mm, the start and end in minutes of the day, null if there is no schedule
+	static int[] parseSchedule(String schedule) {
+		if (schedule == null || schedule.trim().isEmpty()) {
+			return null;
+		}
+
+		try {
+			String[] range = schedule.trim().split("-");
+			return new int[] {parseMinutes(range[0]), parseMinutes(range[1])};
+		} catch (Exception e) {
+			logger.warn("invalid limit_schedule : {}, limits always apply", schedule);
+			return null;
+		}
+	}
+
+	static boolean isInSchedule(int start, int end, int minutes) {
+		if (start <= end) {
+			return minutes >= start && minutes < end;
+		}
+		// e.g. 22:00-06:00
+		return minutes >= start || minutes < end;
+	}
+
+	private static int parseMinutes(String time) {
+		String[] hm = time.trim().split(":");
+		int minutes = Integer.parseInt(hm[0]) * 60;
+		if (hm.length > 1) {
+			minutes += Integer.parseInt(hm[1]);
+		}
+		return minutes;
+	}
+
+	private void checkSchedule() {
+		if (!isScheduled) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		if (now - lastScheduleCheck < SCHEDULE_CHECK_INTERVAL) {
+			return;
+		}
+
+		synchronized (this) {
+			if (now - lastScheduleCheck < SCHEDULE_CHECK_INTERVAL) {
+				return;
+			}
+			lastScheduleCheck = now;
+
+			Calendar calendar = Calendar.getInstance();
+			int minutes = calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+			boolean inSchedule = isInSchedule(scheduleStart, scheduleEnd, minutes);
+
+			if (inSchedule != isInSchedule) {
+				isInSchedule = inSchedule;
+				applyRates(inSchedule);
+				logger.info("throttle {}", inSchedule ? "limits on" : "limits off");
+			}
+		}
+	}
+
+	private void applyRates(boolean isLimited) {
+		sourceBytes.setRate(isLimited ? sourceBandwidth : 0);
+		sourceRequests.setRate(isLimited ? sourceRequestRate : 0);
+		targetBytes.setRate(isLimited ? targetBandwidth : 0);
+		targetRequests.setRate(isLimited ? targetRequestRate : 0);
+	}
+
+	public void request(boolean isSource) {
+		checkSchedule();
+		try {
+			if (isSource) {
+				sourceRequests.acquire(1);
+			} else {
+				targetRequests.acquire(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public InputStream wrap(InputStream is, boolean isSource) {
+		if (is == null || !isBandwidthLimited(isSource)) {
+			return is;
+		}
+		return new ThrottledInputStream(is, isSource ? sourceBytes : targetBytes);
+	}
+
+	public boolean isBandwidthLimited(boolean isSource) {
+		return isSource ? sourceBandwidth > 0 : targetBandwidth > 0;
+	}
+
+	private void acquireBytes(TokenBucket bucket, long bytes) throws InterruptedException {
+		checkSchedule();
+		bucket.acquire(bytes);
+	}
+
+	// rate 0 is unlimited. Tokens may go negative, the caller then sleeps until they are paid back.
+	static class TokenBucket {
+		private long rate;
+		private double tokens;
+		private long lastRefill;
+
+		synchronized void setRate(long rate) {
+			this.rate = rate;
+			this.tokens = rate;
+			this.lastRefill = System.nanoTime();
+		}
+
+		void acquire(long permits) throws InterruptedException {
+			long waitMillis = 0;
+			synchronized (this) {
+				if (rate <= 0) {
+					return;
+				}
+				long now = System.nanoTime();
+				tokens = Math.min(rate, tokens + (now - lastRefill) * rate / 1e9);
+				lastRefill = now;
+				tokens -= permits;
+				if (tokens < 0) {
+					waitMillis = (long) (-tokens * 1000 / rate);
+				}
+			}
+			if (waitMillis > 0) {
+				Thread.sleep(waitMillis);
+			}
+		}
+	}
+
+	class ThrottledInputStream extends FilterInputStream {
+		private TokenBucket bucket;
+
+		ThrottledInputStream(InputStream in, TokenBucket bucket) {
+			super(in);
+			this.bucket = bucket;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				pay(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				pay(n);
+			}
+			return n;
+		}
+
+		private void pay(long bytes) throws IOException {
+			try {
+				acquireBytes(bucket, bytes);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(e.getMessage());
+			}
+		}
+	}
+}
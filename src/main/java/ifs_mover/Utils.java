@@ -31,6 +31,9 @@ public class Utils {
 
 	private static MoverDB moverDB;
     public final static int RETRY_COUNT = 3;
+    // ms, DB retries wait a random time up to DB_RETRY_DELAY * 2^n so that the threads do not retry at once
+    private final static long DB_RETRY_DELAY = 10;
+    private final static long DB_RETRY_MAX_DELAY = 1000;
 
 	// private static final List<Map<String, String>>movedObjectList = new ArrayList<Map<String, String>>();
 	// private static final List<Map<String, Long>>movedJobList = new ArrayList<Map<String, Long>>();
@@ -106,68 +109,89 @@ public class Utils {
 	}
 
     public static void insertMoveObject(String jobId, boolean isFile, String mTime, long size, String path, String etag, String tag) {
-        for (int i = 0; i < RETRY_COUNT; i++) {
-            if (getDBInstance().insertMoveObject(jobId, isFile, mTime, size, path, etag, tag)) {
-				return;
-			} else {
-				try {
-					Thread.sleep(5);
-				} catch (InterruptedException e) {
-					logger.error(e.getMessage());
-				}
-			}
-        }
-        logger.error("failed insertMoveObject. path={}", path);
+		long mark = ListWatermark.begin();
+		try {
+			for (int i = 0; i < RETRY_COUNT; i++) {
+				if (getDBInstance().insertMoveObject(jobId, isFile, mTime, size, path, etag, tag)) {
+					return;
+				} else {
+					try {
+						Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
+					} catch (InterruptedException e) {
+						logger.error(e.getMessage());
+					}
+				}
+			}
+			logger.error("failed insertMoveObject. path={}", path);
+		} finally {
+			ListWatermark.end(mark);
+		}
     }
 
 	public static long insertMoveObject(String jobId, ObjectListing objectListing) {
-		long totalSize = 0;
-        for (int i = 0; i < RETRY_COUNT; i++) {
-            if ((totalSize = getDBInstance().insertMoveObject(jobId, objectListing)) > 0) {
-				return totalSize;
-			} else {
-				try {
-					Thread.sleep(5);
-				} catch (InterruptedException e) {
-					logger.error(e.getMessage());
-				}
-			}
-        }
-        logger.error("failed insertMoveObject. path={}", objectListing.toString());
-		return totalSize;
+		long mark = ListWatermark.begin();
+		try {
+			long totalSize = 0;
+			for (int i = 0; i < RETRY_COUNT; i++) {
+				if ((totalSize = getDBInstance().insertMoveObject(jobId, objectListing)) > 0) {
+					return totalSize;
+				} else {
+					try {
+						Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
+					} catch (InterruptedException e) {
+						logger.error(e.getMessage());
+					}
+				}
+			}
+			logger.error("failed insertMoveObject. path={}", objectListing.toString());
+			return totalSize;
+		} finally {
+			ListWatermark.end(mark);
+		}
     }
 
 	public static long insertMoveObject(String jobId, List<MoveData> list) {
-		long totalSize = 0;
-        for (int i = 0; i < RETRY_COUNT; i++) {
-            if ((totalSize = getDBInstance().insertMoveObject(jobId, list)) > 0) {
-				return totalSize;
-			} else {
-				try {
-					Thread.sleep(5);
-				} catch (InterruptedException e) {
-					logger.error(e.getMessage());
+		long mark = ListWatermark.begin();
+		try {
+			long totalSize = 0;
+			for (int i = 0; i < RETRY_COUNT; i++) {
+				// a batch of directories and empty files has no size, -1 is a failure
+				if ((totalSize = getDBInstance().insertMoveObject(jobId, list)) >= 0) {
+					return totalSize;
+				} else {
+					try {
+						Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
+					} catch (InterruptedException e) {
+						logger.error(e.getMessage());
+					}
 				}
 			}
-        }
-        logger.error("failed insertMoveObject. path={}", list.toString());
-		return totalSize;
+			logger.error("failed insertMoveObject. path={}", list.toString());
+			return 0;
+		} finally {
+			ListWatermark.end(mark);
+		}
 	}
 
 	public static void insertMoveObjectVersion(String jobId, boolean isFile, String mTime, long size, String path, String versionId, String etag, String multipartInfo, String tag, boolean isDelete, boolean isLatest) {
-		for (int i = 0; i < RETRY_COUNT; i++) {
-			if (getDBInstance().insertMoveObjectVersioning(jobId, isFile, mTime, size, path, versionId, etag, multipartInfo, tag, isDelete, isLatest)) {
-				return;
-			} else {
-				try {
-					Thread.sleep(5);
-				} catch (InterruptedException e) {
-					logger.error(e.getMessage());
+		long mark = ListWatermark.begin();
+		try {
+			for (int i = 0; i < RETRY_COUNT; i++) {
+				if (getDBInstance().insertMoveObjectVersioning(jobId, isFile, mTime, size, path, versionId, etag, multipartInfo, tag, isDelete, isLatest)) {
+					return;
+				} else {
+					try {
+						Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
+					} catch (InterruptedException e) {
+						logger.error(e.getMessage());
+					}
 				}
 			}
-		}
 
-		logger.error("failed insertMoveObjectVersioning. path={}", path);
+			logger.error("failed insertMoveObjectVersioning. path={}", path);
+		} finally {
+			ListWatermark.end(mark);
+		}
 	}
 
 	public static long insertRerunObject(String jobId, ObjectListing objectListing) {
@@ -177,7 +201,7 @@ public class Utils {
 				return totalSize;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -188,20 +212,25 @@ public class Utils {
     }
 
 	public static long insertMoveObjectVersion(String jobId, VersionListing versionListing) {
-		long totalSize = -1;
-        for (int i = 0; i < RETRY_COUNT; i++) {
-            if ((totalSize = getDBInstance().insertMoveObjectVersioning(jobId, versionListing)) > 0) {
-				return totalSize;
-			} else {
-				try {
-					Thread.sleep(5);
-				} catch (InterruptedException e) {
-					logger.error(e.getMessage());
+		long mark = ListWatermark.begin();
+		try {
+			long totalSize = -1;
+			for (int i = 0; i < RETRY_COUNT; i++) {
+				if ((totalSize = getDBInstance().insertMoveObjectVersioning(jobId, versionListing)) > 0) {
+					return totalSize;
+				} else {
+					try {
+						Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
+					} catch (InterruptedException e) {
+						logger.error(e.getMessage());
+					}
 				}
 			}
-        }
-        logger.error("failed insertMoveObject. path={}", versionListing.toString());
-		return totalSize;
+			logger.error("failed insertMoveObject. path={}", versionListing.toString());
+			return totalSize;
+		} finally {
+			ListWatermark.end(mark);
+		}
 	}
 
 	public static long insertRerunObjectVersion(String jobId, VersionListing versionListing) {
@@ -211,7 +240,7 @@ public class Utils {
 				return totalSize;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -227,7 +256,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -243,7 +272,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -259,7 +288,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -275,7 +304,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -291,7 +320,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -307,7 +336,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -323,7 +352,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -339,7 +368,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -355,7 +384,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -371,7 +400,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -407,7 +436,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -423,7 +452,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -439,7 +468,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -455,7 +484,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -465,6 +494,22 @@ public class Utils {
 		logger.error("failed insertTargetObject. path={}", path);
 	}
 
+	public static void insertTargetObject(String jobId, List<MoveData> list) {
+		for (int i = 0; i < RETRY_COUNT; i++) {
+			if (getDBInstance().insertTargetObject(jobId, list)) {
+				return;
+			} else {
+				try {
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
+				} catch (InterruptedException e) {
+					logger.error(e.getMessage());
+				}
+			}
+		}
+
+		logger.error("failed insertTargetObject. {} objects from path={}", list.size(), list.get(0).getPath());
+	}
+
 	public static boolean compareObject(String jobId, String path, long size, String etg) {
 		return getDBInstance().compareObject(jobId, path, size, etg);
 	}
@@ -512,7 +557,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -526,7 +571,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -542,7 +587,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -558,7 +603,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -574,7 +619,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -590,7 +635,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -606,7 +651,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -622,7 +667,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -638,7 +683,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -654,7 +699,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -670,7 +715,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -686,7 +731,7 @@ public class Utils {
 				return;
 			} else {
 				try {
-					Thread.sleep(5);
+					Thread.sleep(MoveRetryPolicy.fullJitter(DB_RETRY_DELAY, DB_RETRY_MAX_DELAY, i));
 				} catch (InterruptedException e) {
 					logger.error(e.getMessage());
 				}
@@ -33,6 +33,7 @@ import com.zaxxer.hikari.HikariDataSource;
 import ifs_mover.Config;
 import ifs_mover.IMOptions;
 import ifs_mover.MoveData;
+import ifs_mover.MoverConfig;
 import ifs_mover.Utils;
 
 public class MariaDB implements MoverDB {
@@ -45,6 +46,8 @@ public class MariaDB implements MoverDB {
 	private static final String IFS_FILE = "file";
 	private static final String UNDER_OBJECTS = "_OBJECTS";
 	private static final String UNDER_RERUN_OBJECTS = "_RERUN_OBJECTS";
+	private static final String UNDER_UPLOADS = "_UPLOADS";
+	private static final String UNDER_UPLOAD_PARTS = "_UPLOAD_PARTS";
 	
 	private static final String WHERE_JOB_ID = " WHERE job_id = ";
 
@@ -71,7 +74,19 @@ public class MariaDB implements MoverDB {
 			+ "`start` VARCHAR(128),\n"
 			+ "`end` VARCHAR(128),\n"
 			+ "`error_desc` VARCHAR(512),\n"
+			+ "`list_complete` TINYINT DEFAULT '0',\n"
+			+ "`inflight_bytes` BIGINT DEFAULT '0',\n"
+			+ "`inflight_limit` BIGINT DEFAULT '0',\n"
+			+ "`throttle_retries` BIGINT DEFAULT '0',\n"
+			+ "`transient_retries` BIGINT DEFAULT '0',\n"
+			+ "`throttle_failures` BIGINT DEFAULT '0',\n"
+			+ "`transient_failures` BIGINT DEFAULT '0',\n"
+			+ "`permanent_failures` BIGINT DEFAULT '0',\n"
 			+ "PRIMARY KEY(`job_id`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
+	private static final String ALTER_JOB_TABLE_LIST_COMPLETE = "ALTER TABLE `JOB` ADD COLUMN IF NOT EXISTS `list_complete` TINYINT DEFAULT '0'";
+	private static final String ALTER_JOB_TABLE_INFLIGHT = "ALTER TABLE `JOB` ADD COLUMN IF NOT EXISTS `inflight_bytes` BIGINT DEFAULT '0', ADD COLUMN IF NOT EXISTS `inflight_limit` BIGINT DEFAULT '0'";
+	private static final String ALTER_JOB_TABLE_RETRIES = "ALTER TABLE `JOB` ADD COLUMN IF NOT EXISTS `throttle_retries` BIGINT DEFAULT '0', ADD COLUMN IF NOT EXISTS `transient_retries` BIGINT DEFAULT '0', "
+			+ "ADD COLUMN IF NOT EXISTS `throttle_failures` BIGINT DEFAULT '0', ADD COLUMN IF NOT EXISTS `transient_failures` BIGINT DEFAULT '0', ADD COLUMN IF NOT EXISTS `permanent_failures` BIGINT DEFAULT '0'";
 	
 	private static final String UPDATE_JOB_ID = "UPDATE JOB_";
 	private static final String INSERT_JOB_ID = "INSERT INTO JOB_";
@@ -81,11 +96,11 @@ public class MariaDB implements MoverDB {
 	private static final String SQL_UPDATE_JOB_STATE_REMOVE = "UPDATE JOB SET job_state = 6 WHERE job_id = ?";
 	private static final String SQL_UPDATE_JOB_STATE_RERUN = "UPDATE JOB SET job_state = 7 WHERE job_id = ?";
 	private static final String SQL_UPDATE_JOB_STATE_RERUN_MOVE = "UPDATE JOB SET job_state = 8 WHERE job_id = ?";
-	private static final String SQL_SELECT_JOB_STATUS = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB ORDER BY job_id";
-	private static final String SQL_SELECT_JOB_STATUS_WITH_JOBID = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB WHERE job_id = ?";
-	private static final String SQL_SELECT_JOB_STATUS_WITH_SRC_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB WHERE source_point LIKE ? ORDER BY job_id";
-	private static final String SQL_SELECT_JOB_STATUS_WITH_DST_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB WHERE target_point LIKE ? ORDER BY job_id";
-	private static final String SQL_SELECT_JOB_STATUS_WITH_SRC_DST_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB WHERE source_point LIKE ? AND target_point LIKE ? ORDER BY job_id";
+	private static final String SQL_SELECT_JOB_STATUS = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB ORDER BY job_id";
+	private static final String SQL_SELECT_JOB_STATUS_WITH_JOBID = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB WHERE job_id = ?";
+	private static final String SQL_SELECT_JOB_STATUS_WITH_SRC_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB WHERE source_point LIKE ? ORDER BY job_id";
+	private static final String SQL_SELECT_JOB_STATUS_WITH_DST_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB WHERE target_point LIKE ? ORDER BY job_id";
+	private static final String SQL_SELECT_JOB_STATUS_WITH_SRC_DST_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB WHERE source_point LIKE ? AND target_point LIKE ? ORDER BY job_id";
 
 	private static final String SQL_UPDATE_JOB_OBJECTS = "UPDATE JOB SET objects_count = objects_count + 1, objects_size = objects_size + ? WHERE job_id =  ?";
 	private static final String SQL_UPDATE_JOB_COUNT_OBJECTS = "UPDATE JOB SET objects_count = objects_count + ?, objects_size = objects_size + ? WHERE job_id =  ?";
@@ -133,6 +148,18 @@ public class MariaDB implements MoverDB {
 	private static final String SQL_GET_MAX_SEQUENCE = "SELECT MAX(sequence) FROM JOB_";
 	private static final String SQL_DELETE_JOB = "DELETE FROM JOB_";
 	private static final String SQL_GET_JOB_STATE = "SELECT job_state FROM JOB WHERE job_id = ";
+	private static final String SQL_UPDATE_JOB_LIST_COMPLETE = "UPDATE JOB SET list_complete = ? WHERE job_id = ?";
+	private static final String SQL_GET_JOB_LIST_COMPLETE = "SELECT list_complete FROM JOB WHERE job_id = ";
+	private static final String SQL_UPDATE_JOB_INFLIGHT = "UPDATE JOB SET inflight_bytes = ?, inflight_limit = ? WHERE job_id = ?";
+	private static final String SQL_UPDATE_JOB_RETRIES = "UPDATE JOB SET throttle_retries = ?, transient_retries = ?, throttle_failures = ?, transient_failures = ?, permanent_failures = ? WHERE job_id = ?";
+	private static final String SQL_INSERT_UPLOAD = "_UPLOADS (path, version_id, target_bucket, target_path, upload_id, part_size, etag) VALUES(?, ?, ?, ?, ?, ?, ?)";
+	private static final String SQL_GET_UPLOAD = "SELECT target_bucket, target_path, upload_id, part_size, etag FROM JOB_";
+	private static final String SQL_GET_UPLOAD_IDS = "SELECT upload_id FROM JOB_";
+	private static final String SQL_UPLOADS_WHERE_PATH_WITH_VERSIONID = "_UPLOADS WHERE path = ? and version_id = ?";
+	private static final String SQL_INSERT_UPLOAD_PART = "_UPLOAD_PARTS (upload_id, part_number, etag) VALUES(?, ?, ?)";
+	private static final String SQL_GET_UPLOAD_PARTS = "SELECT part_number, etag FROM JOB_";
+	private static final String SQL_UPLOAD_PARTS_WHERE_UPLOAD_ID = "_UPLOAD_PARTS WHERE upload_id = ?";
+	private static final String SQL_DROP_TABLE_IF_EXISTS = "DROP TABLE IF EXISTS JOB_";
 
 	private static final String SQL_DROP_MOVE_OBJECT = "DROP TABLE JOB_";
 	private static final String SQL_DROP_MOVE_OBJECT_INDEX = "DROP INDEX IF EXISTS idx_path ON JOB_";
@@ -153,6 +180,17 @@ public class MariaDB implements MoverDB {
 	private static final String SQL_WHERE_PATH = " WHERE path = ?";
 	private static final String SQL_WHERE_PATH_WITH_VERSIONID_IS_NULL = " WHERE path = ? and version_id is null";
 	private static final String SQL_WHERE_PATH_WITH_VERSIONID = " WHERE path = ? and version_id = ?";
+	private static final String SQL_SET_CHECKSUM = " SET checksum = ?";
+	private static final String SQL_GET_MOVE_OBJECT_INFO_ORDERED = "SELECT sequence, path, isfile, size, object_state, mtime, version_id, etag, multipart_info, isdelete, islatest, skip_check FROM JOB_";
+	private static final String SQL_CREATE_SIZE_INDEX = "CREATE INDEX IF NOT EXISTS idx_size ON JOB_";
+	private static final String SQL_ADD_CHECKSUM_COLUMN = " ADD COLUMN IF NOT EXISTS `checksum` VARCHAR(96) DEFAULT NULL";
+	private static final String SQL_ORDERED_WHERE_SIZE = " WHERE size >= ? and size < ?";
+	private static final String SQL_ORDERED_AFTER_SEQUENCE = " and sequence > ?";
+	private static final String SQL_ORDERED_AFTER_SIZE = " and (size < ? or (size = ? and sequence < ?))";
+	private static final String SQL_ORDERED_AFTER_MTIME = " and (mtime < ? or (mtime = ? and sequence < ?))";
+	private static final String SQL_ORDER_BY_SEQUENCE = " ORDER BY sequence LIMIT ?";
+	private static final String SQL_ORDER_BY_SIZE_DESC = " ORDER BY size DESC, sequence DESC LIMIT ?";
+	private static final String SQL_ORDER_BY_MTIME_DESC = " ORDER BY mtime DESC, sequence DESC LIMIT ?";
 
 	private static final String SQL_GET_TARGET = "SELECT path FROM JOB_";
 	private static final String SQL_GET_TARGET_OBJECT = "_TARGET_OBJECTS WHERE path = ?";
@@ -278,6 +316,10 @@ public class MariaDB implements MoverDB {
 	private void createTable() throws Exception {
 		String query = CREATE_JOB_TABLE;
 		execute(query, null);
+		// JOB tables created by older versions
+		execute(ALTER_JOB_TABLE_LIST_COMPLETE, null);
+		execute(ALTER_JOB_TABLE_INFLIGHT, null);
+		execute(ALTER_JOB_TABLE_RETRIES, null);
 	}
 
 	@Override
@@ -331,18 +373,20 @@ public class MariaDB implements MoverDB {
 				+ "`version_id` VARCHAR(64),"
 				+ "`etag` VARCHAR(64),"
 				+ "`multipart_info` TEXT DEFAULT NULL,"
+				+ "`checksum` VARCHAR(96) DEFAULT NULL,"
 				// + "`tag` TEXT DEFAULT NULL,"
 				+ "`isdelete` BOOLEAN DEFAULT false,"
 				+ "`islatest` BOOLEAN DEFAULT false,"
 				+ "`error_date` TEXT,"
 				+ "`error_code` TEXT,"
 				+ "`error_desc` TEXT,"
-				+ "PRIMARY KEY(`sequence`), INDEX idx_path(`path`), INDEX idx_mtime(`mtime`), INDEX idx_state(`object_state`), INDEX idx_delete(`isdelete`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
+				+ "PRIMARY KEY(`sequence`), INDEX idx_path(`path`), INDEX idx_mtime(`mtime`), INDEX idx_size(`size`), INDEX idx_state(`object_state`), INDEX idx_delete(`isdelete`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
 		try {
 			execute(query, null);
 		} catch (Exception e) {
 			logger.error(e.getMessage());
 		}
+		addChecksumColumn(jobId + UNDER_OBJECTS);
 	}
 
 	public void createMoveObjectTableVersioning(String jobId) {
@@ -357,18 +401,29 @@ public class MariaDB implements MoverDB {
 				+ "`version_id` VARCHAR(64),"
 				+ "`etag` VARCHAR(64),"
 				+ "`multipart_info` TEXT DEFAULT NULL,"
+				+ "`checksum` VARCHAR(96) DEFAULT NULL,"
 				// + "`tag` TEXT DEFAULT NULL,"
 				+ "`isdelete` BOOLEAN DEFAULT false,"
 				+ "`islatest` BOOLEAN DEFAULT false,"
 				+ "`error_date` TEXT,"
 				+ "`error_code` TEXT,"
 				+ "`error_desc` TEXT,"
-				+ "PRIMARY KEY(`sequence`), INDEX idx_path(`path`), INDEX idx_mtime(`mtime`), INDEX idx_versionid(`version_id`), INDEX idx_state(`object_state`), INDEX idx_delete(`isdelete`), INDEX idx_latest(`islatest`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
+				+ "PRIMARY KEY(`sequence`), INDEX idx_path(`path`), INDEX idx_mtime(`mtime`), INDEX idx_size(`size`), INDEX idx_versionid(`version_id`), INDEX idx_state(`object_state`), INDEX idx_delete(`isdelete`), INDEX idx_latest(`islatest`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
 		try {
 			execute(query, null);
 		} catch (Exception e) {
 			logger.error(e.getMessage());
 		}
+		addChecksumColumn(jobId + UNDER_OBJECTS);
+	}
+
+	// tables created before the checksum column was added
+	private void addChecksumColumn(String table) {
+		try {
+			execute("ALTER TABLE JOB_" + table + SQL_ADD_CHECKSUM_COLUMN, null);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
 	}
 
 	@Override
@@ -1359,6 +1414,35 @@ public class MariaDB implements MoverDB {
 		return true;
 	}
 
+	@Override
+	public boolean insertTargetObject(String jobId, List<MoveData> list) {
+		String query = SQL_REPLACE + jobId + SQL_INSERT_TARGET_OBJECT;
+		try (Connection conn = ds.getConnection();
+			 PreparedStatement pstmt = conn.prepareStatement(query);
+			) {
+			conn.setAutoCommit(false);
+
+			for (MoveData data : list) {
+				pstmt.setObject(1, data.getPath());
+				pstmt.setObject(2, data.getVersionId());
+				pstmt.setObject(3, data.getSize());
+				pstmt.setObject(4, data.getETag());
+				pstmt.addBatch();
+			}
+			pstmt.executeBatch();
+			conn.commit();
+			conn.setAutoCommit(true);
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			return false;
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+			return false;
+		}
+
+		return true;
+	}
+
 	@Override
 	public boolean updateSkipObject(String jobId, String path, String versionId) {
 		List<Object> params = new ArrayList<Object>();
@@ -1692,18 +1776,20 @@ public class MariaDB implements MoverDB {
 				+ "`version_id` VARCHAR(64),"
 				+ "`etag` VARCHAR(64),"
 				+ "`multipart_info` TEXT DEFAULT NULL,"
+				+ "`checksum` VARCHAR(96) DEFAULT NULL,"
 				// + "`tag` TEXT DEFAULT NULL,"
 				+ "`isdelete` BOOLEAN DEFAULT false,"
 				+ "`islatest` BOOLEAN DEFAULT false,"
 				+ "`error_date` TEXT,"
 				+ "`error_code` TEXT,"
 				+ "`error_desc` TEXT,"
-				+ "PRIMARY KEY(`sequence`), INDEX idx_path(`path`), INDEX idx_mtime(`mtime`), INDEX idx_state(`object_state`), INDEX idx_delete(`isdelete`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
+				+ "PRIMARY KEY(`sequence`), INDEX idx_path(`path`), INDEX idx_mtime(`mtime`), INDEX idx_size(`size`), INDEX idx_state(`object_state`), INDEX idx_delete(`isdelete`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
 		try {
 			execute(query, null);
 		} catch (Exception e) {
 			logger.error(e.getMessage());
 		}
+		addChecksumColumn(jobId + UNDER_RERUN_OBJECTS);
 	}
 
 	public void createRerunObjectTableVersioning(String jobId) {
@@ -1718,18 +1804,20 @@ public class MariaDB implements MoverDB {
 				+ "`version_id` VARCHAR(64),"
 				+ "`etag` VARCHAR(64),"
 				+ "`multipart_info` TEXT DEFAULT NULL,"
+				+ "`checksum` VARCHAR(96) DEFAULT NULL,"
 				// + "`tag` TEXT DEFAULT NULL,"
 				+ "`isdelete` BOOLEAN DEFAULT false,"
 				+ "`islatest` BOOLEAN DEFAULT false,"
 				+ "`error_date` TEXT,"
 				+ "`error_code` TEXT,"
 				+ "`error_desc` TEXT,"
-				+ "PRIMARY KEY(`sequence`), INDEX idx_path(`path`), INDEX idx_mtime(`mtime`), INDEX idx_versionid(`version_id`), INDEX idx_state(`object_state`), INDEX idx_delete(`isdelete`), INDEX idx_latest(`islatest`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
+				+ "PRIMARY KEY(`sequence`), INDEX idx_path(`path`), INDEX idx_mtime(`mtime`), INDEX idx_size(`size`), INDEX idx_versionid(`version_id`), INDEX idx_state(`object_state`), INDEX idx_delete(`isdelete`), INDEX idx_latest(`islatest`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
 		try {
 			execute(query, null);
 		} catch (Exception e) {
 			logger.error(e.getMessage());
 		}
+		addChecksumColumn(jobId + UNDER_RERUN_OBJECTS);
 	}
 
 	@Override
@@ -2275,7 +2363,7 @@ public class MariaDB implements MoverDB {
 			
 			for (MoveData data: list) {
 				pstmt.setObject(1, data.getPath());
-				pstmt.setObject(2, data.getPath().charAt(data.getPath().length() - 1) != '/');
+				pstmt.setObject(2, data.isFile());
 				pstmt.setObject(3, data.getmTime());
 				pstmt.setObject(4, data.getSize());
 				if (data.getETag() == null || data.getETag().isEmpty()) {
@@ -2291,11 +2379,328 @@ public class MariaDB implements MoverDB {
 			conn.setAutoCommit(true);
 		} catch (SQLException e) {
 			logger.error(e.getMessage());
+			return -1;
 		} catch (Exception e) {
 			logger.error(e.getMessage());
+			return -1;
 		}
 		
 		return totalSize;
 	}
 
-}
\ No newline at end of file
+	@Override
+	public void updateJobListComplete(String jobId, boolean isComplete) {
+		List<Object> params = new ArrayList<Object>();
+		params.add(isComplete ? 1 : 0);
+		params.add(jobId);
+		try {
+			execute(SQL_UPDATE_JOB_LIST_COMPLETE, params);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+	}
+
+	@Override
+	public boolean isJobListComplete(String jobId) {
+		String query = SQL_GET_JOB_LIST_COMPLETE + jobId;
+		try (Connection conn = ds.getConnection();
+			 PreparedStatement pstmt = conn.prepareStatement(query);
+			 ResultSet rs = pstmt.executeQuery();
+			) {
+			if (rs.next()) {
+				return rs.getInt(MoverDB.JOB_TABLE_COLUMN_LIST_COMPLETE) == 1;
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+		return false;
+	}
+
+	@Override
+	public void updateJobInflight(String jobId, long bytes, long limit) {
+		List<Object> params = new ArrayList<Object>();
+		params.add(bytes);
+		params.add(limit);
+		params.add(jobId);
+		try {
+			execute(SQL_UPDATE_JOB_INFLIGHT, params);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+	}
+
+	@Override
+	public void updateJobRetries(String jobId, long throttleRetries, long transientRetries, long throttleFailures, long transientFailures, long permanentFailures) {
+		List<Object> params = new ArrayList<Object>();
+		params.add(throttleRetries);
+		params.add(transientRetries);
+		params.add(throttleFailures);
+		params.add(transientFailures);
+		params.add(permanentFailures);
+		params.add(jobId);
+		try {
+			execute(SQL_UPDATE_JOB_RETRIES, params);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+	}
+
+	@Override
+	public void createUploadTable(String jobId) {
+		String query = "CREATE TABLE IF NOT EXISTS JOB_" + jobId + "_UPLOADS (\n"
+				+ "`path` VARBINARY(2048) NOT NULL,\n"
+				+ "`version_id` VARCHAR(64) NOT NULL DEFAULT '',\n"
+				+ "`target_bucket` VARCHAR(256) NOT NULL,\n"
+				+ "`target_path` VARBINARY(2048) NOT NULL,\n"
+				+ "`upload_id` VARCHAR(512) NOT NULL,\n"
+				+ "`part_size` BIGINT NOT NULL,\n"
+				+ "`etag` VARCHAR(64),\n"
+				+ "PRIMARY KEY(`path`, `version_id`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
+		String partQuery = "CREATE TABLE IF NOT EXISTS JOB_" + jobId + "_UPLOAD_PARTS (\n"
+				+ "`upload_id` VARCHAR(512) NOT NULL,\n"
+				+ "`part_number` INT NOT NULL,\n"
+				+ "`etag` VARCHAR(64) NOT NULL,\n"
+				+ "PRIMARY KEY(`upload_id`, `part_number`))ENGINE=InnoDB DEFAULT CHARSET=utf8;";
+		try {
+			execute(query, null);
+			execute(partQuery, null);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+	}
+
+	@Override
+	public void dropUploadTable(String jobId) {
+		try {
+			execute(SQL_DROP_TABLE_IF_EXISTS + jobId + UNDER_UPLOADS, null);
+			execute(SQL_DROP_TABLE_IF_EXISTS + jobId + UNDER_UPLOAD_PARTS, null);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+	}
+
+	@Override
+	public boolean insertUpload(String jobId, String path, String versionId, String targetBucket, String targetPath, String uploadId, long partSize, String etag) {
+		List<Object> params = new ArrayList<Object>();
+		String sql = SQL_REPLACE + jobId + SQL_INSERT_UPLOAD;
+		params.add(path);
+		params.add(versionId == null ? "" : versionId);
+		params.add(targetBucket);
+		params.add(targetPath);
+		params.add(uploadId);
+		params.add(partSize);
+		params.add(etag);
+		try {
+			execute(sql, params);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public Map<String, String> getUpload(String jobId, String path, String versionId) {
+		String sql = SQL_GET_UPLOAD + jobId + SQL_UPLOADS_WHERE_PATH_WITH_VERSIONID;
+		try (Connection conn = ds.getConnection();
+			 PreparedStatement pstmt = conn.prepareStatement(sql);
+			) {
+			pstmt.setObject(1, path);
+			pstmt.setObject(2, versionId == null ? "" : versionId);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (rs.next()) {
+					Map<String, String> info = new HashMap<String, String>();
+					info.put(UPLOADS_TABLE_COLUMN_TARGET_BUCKET, rs.getString(UPLOADS_TABLE_COLUMN_TARGET_BUCKET));
+					info.put(UPLOADS_TABLE_COLUMN_TARGET_PATH, rs.getString(UPLOADS_TABLE_COLUMN_TARGET_PATH));
+					info.put(UPLOADS_TABLE_COLUMN_UPLOAD_ID, rs.getString(UPLOADS_TABLE_COLUMN_UPLOAD_ID));
+					info.put(UPLOADS_TABLE_COLUMN_PART_SIZE, String.valueOf(rs.getLong(UPLOADS_TABLE_COLUMN_PART_SIZE)));
+					info.put(UPLOADS_TABLE_COLUMN_ETAG, rs.getString(UPLOADS_TABLE_COLUMN_ETAG));
+					return info;
+				}
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+		return null;
+	}
+
+	@Override
+	public List<String> getUploadIds(String jobId) {
+		List<String> uploadIds = new ArrayList<String>();
+		String sql = SQL_GET_UPLOAD_IDS + jobId + UNDER_UPLOADS;
+		try {
+			List<HashMap<String, Object>> resultList = select(sql, null);
+			if (resultList != null) {
+				for (HashMap<String, Object> result : resultList) {
+					uploadIds.add((String) result.get(UPLOADS_TABLE_COLUMN_UPLOAD_ID));
+				}
+			}
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+		return uploadIds;
+	}
+
+	@Override
+	public boolean deleteUpload(String jobId, String path, String versionId, String uploadId) {
+		List<Object> params = new ArrayList<Object>();
+		params.add(uploadId);
+		List<Object> uploadParams = new ArrayList<Object>();
+		uploadParams.add(path);
+		uploadParams.add(versionId == null ? "" : versionId);
+		try {
+			execute(SQL_DELETE_JOB + jobId + SQL_UPLOAD_PARTS_WHERE_UPLOAD_ID, params);
+			execute(SQL_DELETE_JOB + jobId + SQL_UPLOADS_WHERE_PATH_WITH_VERSIONID, uploadParams);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean insertUploadPart(String jobId, String uploadId, int partNumber, String etag) {
+		List<Object> params = new ArrayList<Object>();
+		String sql = SQL_REPLACE + jobId + SQL_INSERT_UPLOAD_PART;
+		params.add(uploadId);
+		params.add(partNumber);
+		params.add(etag);
+		try {
+			execute(sql, params);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public Map<Integer, String> getUploadParts(String jobId, String uploadId) {
+		Map<Integer, String> parts = new HashMap<Integer, String>();
+		List<Object> params = new ArrayList<Object>();
+		String sql = SQL_GET_UPLOAD_PARTS + jobId + SQL_UPLOAD_PARTS_WHERE_UPLOAD_ID;
+		params.add(uploadId);
+
+		List<HashMap<String, Object>> resultList = null;
+		try {
+			resultList = select(sql, params);
+			if (resultList != null) {
+				for (HashMap<String, Object> result : resultList) {
+					parts.put((int) result.get(UPLOAD_PARTS_TABLE_COLUMN_PART_NUMBER), (String) result.get(UPLOADS_TABLE_COLUMN_ETAG));
+				}
+			}
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+		return parts;
+	}
+
+	@Override
+	public boolean updateObjectChecksum(String jobId, String path, String versionId, String checksum) {
+		return updateChecksum(UPDATE_JOB_ID + jobId + UNDER_OBJECTS, path, versionId, checksum);
+	}
+
+	@Override
+	public boolean updateObjectRerunChecksum(String jobId, String path, String versionId, String checksum) {
+		return updateChecksum(UPDATE_JOB_ID + jobId + UNDER_RERUN_OBJECTS, path, versionId, checksum);
+	}
+
+	private boolean updateChecksum(String table, String path, String versionId, String checksum) {
+		List<Object> params = new ArrayList<Object>();
+		params.add(checksum);
+		params.add(path);
+		String sql;
+		if (versionId != null && !versionId.isEmpty()) {
+			sql = table + SQL_SET_CHECKSUM + SQL_WHERE_PATH_WITH_VERSIONID;
+			params.add(versionId);
+		} else {
+			sql = table + SQL_SET_CHECKSUM + SQL_WHERE_PATH_WITH_VERSIONID_IS_NULL;
+		}
+
+		try {
+			execute(sql, params);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void createSizeIndex(String jobId, boolean isRerun) {
+		String sql = SQL_CREATE_SIZE_INDEX + jobId + (isRerun ? UNDER_RERUN_OBJECTS : UNDER_OBJECTS) + " (size)";
+		try {
+			execute(sql, null);
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+	}
+
+	@Override
+	public List<MoveData> getToMoveObjectsInfoOrdered(String jobId, boolean isRerun, String order, long minSize, long maxSize, MoveData last, long limit) {
+		List<MoveData> resultList = new ArrayList<MoveData>();
+		List<Object> params = new ArrayList<Object>();
+		StringBuilder sql = new StringBuilder(SQL_GET_MOVE_OBJECT_INFO_ORDERED);
+		sql.append(jobId).append(isRerun ? UNDER_RERUN_OBJECTS : UNDER_OBJECTS).append(SQL_ORDERED_WHERE_SIZE);
+		params.add(minSize);
+		params.add(maxSize);
+
+		if (MoverConfig.MOVE_ORDER_SIZE.equals(order)) {
+			if (last != null) {
+				sql.append(SQL_ORDERED_AFTER_SIZE);
+				params.add(last.getSize());
+				params.add(last.getSize());
+				params.add(last.getSequence());
+			}
+			sql.append(SQL_ORDER_BY_SIZE_DESC);
+		} else if (MoverConfig.MOVE_ORDER_MTIME.equals(order)) {
+			if (last != null) {
+				sql.append(SQL_ORDERED_AFTER_MTIME);
+				params.add(last.getmTime());
+				params.add(last.getmTime());
+				params.add(last.getSequence());
+			}
+			sql.append(SQL_ORDER_BY_MTIME_DESC);
+		} else {
+			if (last != null) {
+				sql.append(SQL_ORDERED_AFTER_SEQUENCE);
+				params.add(last.getSequence());
+			}
+			sql.append(SQL_ORDER_BY_SEQUENCE);
+		}
+		params.add(limit);
+
+		try (Connection conn = ds.getConnection();
+				PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+			for (int i = 0; i < params.size(); i++) {
+				pstmt.setObject(i + 1, params.get(i));
+			}
+			try (ResultSet rset = pstmt.executeQuery()) {
+				while (rset.next()) {
+					MoveData data = new MoveData();
+					data.setSequence(rset.getLong(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_SEQUENCE));
+					data.setPath(rset.getString(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_PATH));
+					data.setFile(rset.getBoolean(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_ISFILE));
+					data.setSize(rset.getLong(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_SIZE));
+					data.setObjectState(rset.getInt(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_OBJECT_STATE));
+					data.setmTime(rset.getString(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_MTIME));
+					data.setVersionId(rset.getString(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_VERSIONID));
+					data.setETag(rset.getString(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_ETAG));
+					data.setMultiPartInfo(rset.getString(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_MULTIPART_INFO));
+					data.setDelete(rset.getBoolean(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_ISDELETE));
+					data.setLatest(rset.getBoolean(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_ISLATEST));
+					data.setSkipCheck(rset.getBoolean(MoverDB.MOVE_OBJECTS_TABLE_COLUMN_SKIP_CHECK));
+					resultList.add(data);
+				}
+			}
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+		}
+
+		return resultList;
+	}
+}
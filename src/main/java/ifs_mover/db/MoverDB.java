@@ -55,6 +55,21 @@ public interface MoverDB {
 	public static final String JOB_TABLE_COLUMN_START = "start";
 	public static final String JOB_TABLE_COLUMN_END = "end";
 	public static final String JOB_TABLE_COLUMN_ERROR_DESC = "error_desc";
+	public static final String JOB_TABLE_COLUMN_LIST_COMPLETE = "list_complete";
+	public static final String JOB_TABLE_COLUMN_INFLIGHT_BYTES = "inflight_bytes";
+	public static final String JOB_TABLE_COLUMN_INFLIGHT_LIMIT = "inflight_limit";
+	public static final String JOB_TABLE_COLUMN_THROTTLE_RETRIES = "throttle_retries";
+	public static final String JOB_TABLE_COLUMN_TRANSIENT_RETRIES = "transient_retries";
+	public static final String JOB_TABLE_COLUMN_THROTTLE_FAILURES = "throttle_failures";
+	public static final String JOB_TABLE_COLUMN_TRANSIENT_FAILURES = "transient_failures";
+	public static final String JOB_TABLE_COLUMN_PERMANENT_FAILURES = "permanent_failures";
+
+	public static final String UPLOADS_TABLE_COLUMN_TARGET_BUCKET = "target_bucket";
+	public static final String UPLOADS_TABLE_COLUMN_TARGET_PATH = "target_path";
+	public static final String UPLOADS_TABLE_COLUMN_UPLOAD_ID = "upload_id";
+	public static final String UPLOADS_TABLE_COLUMN_PART_SIZE = "part_size";
+	public static final String UPLOADS_TABLE_COLUMN_ETAG = "etag";
+	public static final String UPLOAD_PARTS_TABLE_COLUMN_PART_NUMBER = "part_number";
 
     public void init(String dbUrl, String dbPort, String dbName, String userName, String passwd,  int poolSize) throws Exception;
     public void createJob(String pid, String select, Config sourceConfig, Config targetConfig);
@@ -70,6 +85,7 @@ public interface MoverDB {
     public long insertMoveObjectVersioning(String jobId, VersionListing versionListing);
     public boolean insertMoveObjectVersioning(String jobId, boolean isFile, String mTime, long size, String path, String versionId, String etag, String multipartInfo, String tag, boolean isDelete, boolean isLatest);
     public boolean insertTargetObject(String jobId, String path, String versionId, long size, String etag);
+    public boolean insertTargetObject(String jobId, List<MoveData> list);
     public boolean updateJobInfo(String jobId, long size);
     public boolean updateJobInfo(String jobId, int count, long size);
     public boolean updateJobRerunInfo(String jobId, long size);
@@ -148,4 +164,33 @@ public interface MoverDB {
     public boolean deleteRerunTableForDeletedObjects(String jobId);
 
     public int getJobState(String jobId);
+
+    public void updateJobListComplete(String jobId, boolean isComplete);
+    public boolean isJobListComplete(String jobId);
+
+    // bytes in flight of the running job and their limit (inflight_limit), shown by status
+    public void updateJobInflight(String jobId, long bytes, long limit);
+
+    // retries and failures after retry of the running job by error class, shown by status
+    public void updateJobRetries(String jobId, long throttleRetries, long transientRetries, long throttleFailures, long transientFailures, long permanentFailures);
+
+    // multipart uploads in progress, kept so that a rerun can continue them
+    public void createUploadTable(String jobId);
+    public void dropUploadTable(String jobId);
+    public boolean insertUpload(String jobId, String path, String versionId, String targetBucket, String targetPath, String uploadId, long partSize, String etag);
+    public Map<String, String> getUpload(String jobId, String path, String versionId);
+    public List<String> getUploadIds(String jobId);
+    public boolean deleteUpload(String jobId, String path, String versionId, String uploadId);
+    public boolean insertUploadPart(String jobId, String uploadId, int partNumber, String etag);
+    public Map<Integer, String> getUploadParts(String jobId, String uploadId);
+
+    // checksum computed while the object was moved (verify_checksum)
+    public boolean updateObjectChecksum(String jobId, String path, String versionId, String checksum);
+    public boolean updateObjectRerunChecksum(String jobId, String path, String versionId, String checksum);
+
+    // size index of the object table for move_order=size, tables of older versions have none
+    public void createSizeIndex(String jobId, boolean isRerun);
+    // objects with minSize <= size < maxSize in the order of move_order (size and mtime descending),
+    // the page after the last object of the previous page (null for the first page)
+    public List<MoveData> getToMoveObjectsInfoOrdered(String jobId, boolean isRerun, String order, long minSize, long maxSize, MoveData last, long limit);
 }
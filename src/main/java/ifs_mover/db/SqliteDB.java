@@ -32,6 +32,7 @@ import com.amazonaws.services.s3.model.VersionListing;
 import ifs_mover.Config;
 import ifs_mover.IMOptions;
 import ifs_mover.MoveData;
+import ifs_mover.MoverConfig;
 import ifs_mover.IMOptions.WORK_TYPE;
 
 public class SqliteDB implements MoverDB {
@@ -72,7 +73,26 @@ public class SqliteDB implements MoverDB {
 			+ "'start' TEXT,\n"
 			+ "'end' TEXT,\n"
 			+ "'error_desc' TEXT,\n"
+			+ "'list_complete' INTEGER DEFAULT 0,\n"
+			+ "'inflight_bytes' INTEGER DEFAULT 0,\n"
+			+ "'inflight_limit' INTEGER DEFAULT 0,\n"
+			+ "'throttle_retries' INTEGER DEFAULT 0,\n"
+			+ "'transient_retries' INTEGER DEFAULT 0,\n"
+			+ "'throttle_failures' INTEGER DEFAULT 0,\n"
+			+ "'transient_failures' INTEGER DEFAULT 0,\n"
+			+ "'permanent_failures' INTEGER DEFAULT 0,\n"
 			+ "PRIMARY KEY('job_id' AUTOINCREMENT));";
+	private static final String ALTER_JOB_TABLE_LIST_COMPLETE = "ALTER TABLE JOB ADD COLUMN list_complete INTEGER DEFAULT 0";
+	private static final String ALTER_JOB_TABLE_INFLIGHT_BYTES = "ALTER TABLE JOB ADD COLUMN inflight_bytes INTEGER DEFAULT 0";
+	private static final String ALTER_JOB_TABLE_INFLIGHT_LIMIT = "ALTER TABLE JOB ADD COLUMN inflight_limit INTEGER DEFAULT 0";
+	private static final String[] ALTER_JOB_TABLE_RETRIES = {
+			"ALTER TABLE JOB ADD COLUMN throttle_retries INTEGER DEFAULT 0",
+			"ALTER TABLE JOB ADD COLUMN transient_retries INTEGER DEFAULT 0",
+			"ALTER TABLE JOB ADD COLUMN throttle_failures INTEGER DEFAULT 0",
+			"ALTER TABLE JOB ADD COLUMN transient_failures INTEGER DEFAULT 0",
+			"ALTER TABLE JOB ADD COLUMN permanent_failures INTEGER DEFAULT 0"};
+	private static final String ALTER_TABLE_JOB = "ALTER TABLE JOB_";
+	private static final String SQL_ADD_COLUMN_CHECKSUM = " ADD COLUMN checksum TEXT";
 	
 	private static final String UPDATE_JOB_ID = "UPDATE JOB_";
 	private static final String INSERT_JOB_ID = "INSERT INTO JOB_";
@@ -82,11 +102,11 @@ public class SqliteDB implements MoverDB {
 	private static final String SQL_UPDATE_JOB_STATE_REMOVE = "UPDATE JOB SET job_state = 6 WHERE job_id = ?";
 	private static final String SQL_UPDATE_JOB_STATE_RERUN = "UPDATE JOB SET job_state = 7 WHERE job_id = ?";
 	private static final String SQL_UPDATE_JOB_STATE_RERUN_MOVE = "UPDATE JOB SET job_state = 8 WHERE job_id = ?";
-	private static final String SQL_SELECT_JOB_STATUS = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB ORDER BY job_id";
-	private static final String SQL_SELECT_JOB_STATUS_JOBID = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB WHERE job_id = ?";
-	private static final String SQL_SELECT_JOB_STATUS_SRC_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB WHERE source_point LIKE ? ORDER BY job_id";
-	private static final String SQL_SELECT_JOB_STATUS_DST_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB WHERE target_point LIKE ? ORDER BY job_id";
-	private static final String SQL_SELECT_JOB_STATUS_SRC_DST_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc FROM JOB WHERE source_point LIKE ? AND target_point LIKE ? ORDER BY job_id";
+	private static final String SQL_SELECT_JOB_STATUS = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB ORDER BY job_id";
+	private static final String SQL_SELECT_JOB_STATUS_JOBID = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB WHERE job_id = ?";
+	private static final String SQL_SELECT_JOB_STATUS_SRC_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB WHERE source_point LIKE ? ORDER BY job_id";
+	private static final String SQL_SELECT_JOB_STATUS_DST_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB WHERE target_point LIKE ? ORDER BY job_id";
+	private static final String SQL_SELECT_JOB_STATUS_SRC_DST_BUCKET = "SELECT job_id, job_state, job_type, source_point, target_point, objects_count, objects_size, moved_objects_count, moved_objects_size, failed_count, failed_size, skip_objects_count, skip_objects_size, delete_objects_count, delete_objects_size, start, end, error_desc, inflight_bytes, inflight_limit, throttle_retries, transient_retries, throttle_failures, transient_failures, permanent_failures FROM JOB WHERE source_point LIKE ? AND target_point LIKE ? ORDER BY job_id";
 	
 	private static final String SQL_UPDATE_JOB_OBJECTS = "UPDATE JOB SET objects_count = objects_count + 1, objects_size = objects_size + ? WHERE job_id =  ?";
 	private static final String SQL_UPDATE_JOB_FAILED_OBJECTS = "UPDATE JOB SET failed_count = failed_count + 1, failed_size = failed_size + ? WHERE job_id =  ?";
@@ -100,6 +120,10 @@ public class SqliteDB implements MoverDB {
 	private static final String SQL_INSERT_JOB = "INSERT INTO JOB(pid, job_type, source_point, target_point, start) VALUES(?, ?, ?, ?, datetime('now', 'localtime'))";
 	private static final String SQL_UPDATE_JOB_START = "UPDATE JOB SET start = datetime('now', 'localtime') WHERE job_id =";
 	private static final String SQL_UPDATE_JOB_END = "UPDATE JOB SET end = datetime('now', 'localtime') WHERE job_id =";
+	private static final String SQL_UPDATE_JOB_LIST_COMPLETE = "UPDATE JOB SET list_complete = ? WHERE job_id = ?";
+	private static final String SQL_GET_JOB_LIST_COMPLETE = "SELECT list_complete FROM JOB WHERE job_id = ";
+	private static final String SQL_UPDATE_JOB_INFLIGHT = "UPDATE JOB SET inflight_bytes = ?, inflight_limit = ? WHERE job_id = ?";
+	private static final String SQL_UPDATE_JOB_RETRIES = "UPDATE JOB SET throttle_retries = ?, transient_retries = ?, throttle_failures = ?, transient_failures = ?, permanent_failures = ? WHERE job_id = ?";
 	private static final String SQL_INIT_JOB_RERUN = "UPDATE JOB SET objects_count = 0, objects_size = 0, moved_objects_count = 0, moved_objects_size = 0, failed_count = 0, failed_size = 0, skip_objects_count = 0, skip_objects_size = 0, delete_objects_count = 0, delete_objects_size = 0 WHERE job_id = ";
 	private static final String SQL_INIT_MOVE_OBJECT_RERUN = "_OBJECTS SET skip_check = 0";
 	private static final String SQL_INSERT_MOVE_OBJECT = "_OBJECTS (path, object_state, isfile, mtime, size, etag, multipart_info, tag) VALUES(?, 1, ?, ?, ?, ?, ?, ?)";
@@ -135,6 +159,17 @@ public class SqliteDB implements MoverDB {
 
 	private static final String SQL_DROP_MOVE_OBJECT = "DROP TABLE JOB_";
 	private static final String SQL_DROP_MOVE_OBJECT_INDEX = "DROP INDEX IF EXISTS PATH_";
+	private static final String SQL_DROP_TABLE_IF_EXISTS = "DROP TABLE IF EXISTS JOB_";
+
+	private static final String UNDER_UPLOADS = "_UPLOADS";
+	private static final String UNDER_UPLOAD_PARTS = "_UPLOAD_PARTS";
+	private static final String SQL_INSERT_UPLOAD = "_UPLOADS (path, version_id, target_bucket, target_path, upload_id, part_size, etag) VALUES(?, ?, ?, ?, ?, ?, ?)";
+	private static final String SQL_GET_UPLOAD = "SELECT target_bucket, target_path, upload_id, part_size, etag FROM JOB_";
+	private static final String SQL_GET_UPLOAD_IDS = "SELECT upload_id FROM JOB_";
+	private static final String SQL_UPLOADS_WHERE_PATH_WITH_VERSIONID = "_UPLOADS WHERE path = ? and version_id = ?";
+	private static final String SQL_INSERT_UPLOAD_PART = "_UPLOAD_PARTS (upload_id, part_number, etag) VALUES(?, ?, ?)";
+	private static final String SQL_GET_UPLOAD_PARTS = "SELECT part_number, etag FROM JOB_";
+	private static final String SQL_UPLOAD_PARTS_WHERE_UPLOAD_ID = "_UPLOAD_PARTS WHERE upload_id = ?";
 
 	// private static final String SQL_OBJECT_WHERE_PATH = "_OBJECTS WHERE path = '";
 	private static final String SQL_OBJECT_WHERE_PATH = "_OBJECTS WHERE path = ?";
@@ -151,6 +186,17 @@ public class SqliteDB implements MoverDB {
 	private static final String SQL_WHERE_PATH = " WHERE path = ?";
 	private static final String SQL_WHERE_PATH_WITH_VERSIONID = " WHERE path = ? and version_id = ?";
 	private static final String SQL_WHERE_PATH_WITH_VERSIONID_NULL = " WHERE path = ? and version_id is null";
+	private static final String SQL_SET_CHECKSUM = " SET checksum = ?";
+	private static final String UNDER_RERUN_OBJECTS = "_RERUN_OBJECTS";
+	private static final String SQL_GET_MOVE_OBJECT_INFO_ORDERED = "SELECT sequence, path, isfile, size, object_state, mtime, version_id, etag, multipart_info, isdelete, islatest, skip_check FROM JOB_";
+	private static final String SQL_CREATE_SIZE_INDEX = "CREATE INDEX IF NOT EXISTS SIZE_";
+	private static final String SQL_ORDERED_WHERE_SIZE = " WHERE size >= ? and size < ?";
+	private static final String SQL_ORDERED_AFTER_SEQUENCE = " and sequence > ?";
+	private static final String SQL_ORDERED_AFTER_SIZE = " and (size < ? or (size = ? and sequence < ?))";
+	private static final String SQL_ORDERED_AFTER_MTIME = " and (mtime < ? or (mtime = ? and sequence < ?))";
+	private static final String SQL_ORDER_BY_SEQUENCE = " ORDER BY sequence LIMIT ?";
+	private static final String SQL_ORDER_BY_SIZE_DESC = " ORDER BY size DESC, sequence DESC LIMIT ?";
+	private static final String SQL_ORDER_BY_MTIME_DESC = " ORDER BY mtime DESC, sequence DESC LIMIT ?";
 
 
 	private static final String SQL_GET_TARGET = "SELECT path FROM JOB_";
@@ -243,6 +289,21 @@ public class SqliteDB implements MoverDB {
 		} catch (SQLException e) {
 			logger.error(e.getMessage());
 		} 
+		addColumn(ALTER_JOB_TABLE_LIST_COMPLETE);
+		addColumn(ALTER_JOB_TABLE_INFLIGHT_BYTES);
+		addColumn(ALTER_JOB_TABLE_INFLIGHT_LIMIT);
+		for (String sql : ALTER_JOB_TABLE_RETRIES) {
+			addColumn(sql);
+		}
+	}
+
+	// SQLite has no ADD COLUMN IF NOT EXISTS, a JOB table of an older version gets the column here
+	private static void addColumn(String sql) {
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute(sql);
+		} catch (SQLException e) {
+			logger.debug(e.getMessage());
+		}
 	}
 	
 	@Override
@@ -300,12 +361,14 @@ public class SqliteDB implements MoverDB {
 				+ "'error_date' TEXT,\n"
 				+ "'error_code' TEXT,\n"
 				+ "'error_desc' TEXT,\n"
+				+ "'checksum' TEXT,\n"
 				+ "UNIQUE('sequence', 'path'))";
 		try(Statement stmt = con.createStatement()) {
 			stmt.executeUpdate(sql);
 		} catch (SQLException e) {
 			logger.error(e.getMessage());
 		} 
+		addColumn(ALTER_TABLE_JOB + jobId + UNDER_OBJECTS + SQL_ADD_COLUMN_CHECKSUM);
 	}
 
 	@Override
@@ -1105,6 +1168,13 @@ public class SqliteDB implements MoverDB {
 				info.put(JOB_TABLE_COLUMN_START, rs.getString(16));
 				info.put(JOB_TABLE_COLUMN_END, rs.getString(17));
 				info.put(JOB_TABLE_COLUMN_ERROR_DESC, rs.getString(18));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_BYTES, rs.getLong(19));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_LIMIT, rs.getLong(20));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_RETRIES, rs.getLong(21));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_RETRIES, rs.getLong(22));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_FAILURES, rs.getLong(23));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_FAILURES, rs.getLong(24));
+				info.put(JOB_TABLE_COLUMN_PERMANENT_FAILURES, rs.getLong(25));
 
 				list.add(info);
 			}
@@ -1157,6 +1227,13 @@ public class SqliteDB implements MoverDB {
 				info.put(JOB_TABLE_COLUMN_START, rs.getString(16));
 				info.put(JOB_TABLE_COLUMN_END, rs.getString(17));
 				info.put(JOB_TABLE_COLUMN_ERROR_DESC, rs.getString(18));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_BYTES, rs.getLong(19));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_LIMIT, rs.getLong(20));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_RETRIES, rs.getLong(21));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_RETRIES, rs.getLong(22));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_FAILURES, rs.getLong(23));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_FAILURES, rs.getLong(24));
+				info.put(JOB_TABLE_COLUMN_PERMANENT_FAILURES, rs.getLong(25));
 
 				list.add(info);
 			}
@@ -1210,6 +1287,13 @@ public class SqliteDB implements MoverDB {
 				info.put(JOB_TABLE_COLUMN_START, rs.getString(16));
 				info.put(JOB_TABLE_COLUMN_END, rs.getString(17));
 				info.put(JOB_TABLE_COLUMN_ERROR_DESC, rs.getString(18));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_BYTES, rs.getLong(19));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_LIMIT, rs.getLong(20));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_RETRIES, rs.getLong(21));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_RETRIES, rs.getLong(22));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_FAILURES, rs.getLong(23));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_FAILURES, rs.getLong(24));
+				info.put(JOB_TABLE_COLUMN_PERMANENT_FAILURES, rs.getLong(25));
 
 				list.add(info);
 			}
@@ -1262,6 +1346,13 @@ public class SqliteDB implements MoverDB {
 				info.put(JOB_TABLE_COLUMN_START, rs.getString(16));
 				info.put(JOB_TABLE_COLUMN_END, rs.getString(17));
 				info.put(JOB_TABLE_COLUMN_ERROR_DESC, rs.getString(18));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_BYTES, rs.getLong(19));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_LIMIT, rs.getLong(20));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_RETRIES, rs.getLong(21));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_RETRIES, rs.getLong(22));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_FAILURES, rs.getLong(23));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_FAILURES, rs.getLong(24));
+				info.put(JOB_TABLE_COLUMN_PERMANENT_FAILURES, rs.getLong(25));
 
 				list.add(info);
 			}
@@ -1314,6 +1405,13 @@ public class SqliteDB implements MoverDB {
 				info.put(JOB_TABLE_COLUMN_START, rs.getString(16));
 				info.put(JOB_TABLE_COLUMN_END, rs.getString(17));
 				info.put(JOB_TABLE_COLUMN_ERROR_DESC, rs.getString(18));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_BYTES, rs.getLong(19));
+				info.put(JOB_TABLE_COLUMN_INFLIGHT_LIMIT, rs.getLong(20));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_RETRIES, rs.getLong(21));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_RETRIES, rs.getLong(22));
+				info.put(JOB_TABLE_COLUMN_THROTTLE_FAILURES, rs.getLong(23));
+				info.put(JOB_TABLE_COLUMN_TRANSIENT_FAILURES, rs.getLong(24));
+				info.put(JOB_TABLE_COLUMN_PERMANENT_FAILURES, rs.getLong(25));
 
 				list.add(info);
 			}
@@ -1628,6 +1726,36 @@ public class SqliteDB implements MoverDB {
 		return false;
 	}
 
+	@Override
+	public synchronized boolean insertTargetObject(String jobId, List<MoveData> list) {
+		open();
+		String sql = SQL_REPLACE + jobId + SQL_INSERT_TARGET_OBJECT;
+		try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+			con.setAutoCommit(false);
+			for (MoveData data : list) {
+				pstmt.setString(1, data.getPath());
+				pstmt.setString(2, data.getVersionId());
+				pstmt.setLong(3, data.getSize());
+				pstmt.setString(4, data.getETag());
+				pstmt.addBatch();
+			}
+			pstmt.executeBatch();
+			con.commit();
+			return true;
+		} catch (SQLException e) {
+			logger.warn(e.getMessage());
+		} finally {
+			// the rows are replaced, so a retry of a half written batch is harmless
+			try {
+				con.setAutoCommit(true);
+			} catch (SQLException e) {
+				logger.error(e.getMessage());
+			}
+		}
+
+		return false;
+	}
+
 	@Override
 	public boolean updateSkipObject(String jobId, String path, String versionId) {
 		open();
@@ -1973,4 +2101,309 @@ public class SqliteDB implements MoverDB {
 		throw new UnsupportedOperationException("Unimplemented method 'insertMoveObject'");
 	}
 
+	@Override
+	public void updateJobListComplete(String jobId, boolean isComplete) {
+		open();
+		try (PreparedStatement pstmt = con.prepareStatement(SQL_UPDATE_JOB_LIST_COMPLETE)) {
+			pstmt.setInt(1, isComplete ? 1 : 0);
+			pstmt.setString(2, jobId);
+			pstmt.executeUpdate();
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+	}
+
+	@Override
+	public boolean isJobListComplete(String jobId) {
+		open();
+		try (Statement stmt = con.createStatement();
+			 ResultSet rs = stmt.executeQuery(SQL_GET_JOB_LIST_COMPLETE + jobId);) {
+			if (rs.next()) {
+				return rs.getInt(1) == 1;
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+		return false;
+	}
+
+	@Override
+	public void updateJobInflight(String jobId, long bytes, long limit) {
+		open();
+		try (PreparedStatement pstmt = con.prepareStatement(SQL_UPDATE_JOB_INFLIGHT)) {
+			pstmt.setLong(1, bytes);
+			pstmt.setLong(2, limit);
+			pstmt.setString(3, jobId);
+			pstmt.executeUpdate();
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+	}
+
+	@Override
+	public void updateJobRetries(String jobId, long throttleRetries, long transientRetries, long throttleFailures, long transientFailures, long permanentFailures) {
+		open();
+		try (PreparedStatement pstmt = con.prepareStatement(SQL_UPDATE_JOB_RETRIES)) {
+			pstmt.setLong(1, throttleRetries);
+			pstmt.setLong(2, transientRetries);
+			pstmt.setLong(3, throttleFailures);
+			pstmt.setLong(4, transientFailures);
+			pstmt.setLong(5, permanentFailures);
+			pstmt.setString(6, jobId);
+			pstmt.executeUpdate();
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+	}
+
+	@Override
+	public void createUploadTable(String jobId) {
+		open();
+		String sql = "CREATE TABLE IF NOT EXISTS JOB_" + jobId + "_UPLOADS (\n"
+				+ "'path' TEXT NOT NULL,\n"
+				+ "'version_id' TEXT NOT NULL DEFAULT '',\n"
+				+ "'target_bucket' TEXT NOT NULL,\n"
+				+ "'target_path' TEXT NOT NULL,\n"
+				+ "'upload_id' TEXT NOT NULL,\n"
+				+ "'part_size' INTEGER NOT NULL,\n"
+				+ "'etag' TEXT,\n"
+				+ "PRIMARY KEY('path', 'version_id'))";
+		String partSql = "CREATE TABLE IF NOT EXISTS JOB_" + jobId + "_UPLOAD_PARTS (\n"
+				+ "'upload_id' TEXT NOT NULL,\n"
+				+ "'part_number' INTEGER NOT NULL,\n"
+				+ "'etag' TEXT NOT NULL,\n"
+				+ "PRIMARY KEY('upload_id', 'part_number'))";
+		try (Statement stmt = con.createStatement()) {
+			stmt.executeUpdate(sql);
+			stmt.executeUpdate(partSql);
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+	}
+
+	@Override
+	public void dropUploadTable(String jobId) {
+		open();
+		try (Statement stmt = con.createStatement()) {
+			stmt.executeUpdate(SQL_DROP_TABLE_IF_EXISTS + jobId + UNDER_UPLOADS);
+			stmt.executeUpdate(SQL_DROP_TABLE_IF_EXISTS + jobId + UNDER_UPLOAD_PARTS);
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+	}
+
+	@Override
+	public boolean insertUpload(String jobId, String path, String versionId, String targetBucket, String targetPath, String uploadId, long partSize, String etag) {
+		open();
+		String sql = SQL_REPLACE + jobId + SQL_INSERT_UPLOAD;
+		try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+			pstmt.setString(1, path);
+			pstmt.setString(2, versionId == null ? "" : versionId);
+			pstmt.setString(3, targetBucket);
+			pstmt.setString(4, targetPath);
+			pstmt.setString(5, uploadId);
+			pstmt.setLong(6, partSize);
+			pstmt.setString(7, etag);
+			pstmt.executeUpdate();
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			return false;
+		} 
+		return true;
+	}
+
+	@Override
+	public Map<String, String> getUpload(String jobId, String path, String versionId) {
+		open();
+		String sql = SQL_GET_UPLOAD + jobId + SQL_UPLOADS_WHERE_PATH_WITH_VERSIONID;
+		try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+			pstmt.setString(1, path);
+			pstmt.setString(2, versionId == null ? "" : versionId);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (rs.next()) {
+					Map<String, String> info = new HashMap<String, String>();
+					info.put(UPLOADS_TABLE_COLUMN_TARGET_BUCKET, rs.getString(1));
+					info.put(UPLOADS_TABLE_COLUMN_TARGET_PATH, rs.getString(2));
+					info.put(UPLOADS_TABLE_COLUMN_UPLOAD_ID, rs.getString(3));
+					info.put(UPLOADS_TABLE_COLUMN_PART_SIZE, String.valueOf(rs.getLong(4)));
+					info.put(UPLOADS_TABLE_COLUMN_ETAG, rs.getString(5));
+					return info;
+				}
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+		return null;
+	}
+
+	@Override
+	public List<String> getUploadIds(String jobId) {
+		open();
+		List<String> uploadIds = new ArrayList<String>();
+		try (Statement stmt = con.createStatement();
+			 ResultSet rs = stmt.executeQuery(SQL_GET_UPLOAD_IDS + jobId + UNDER_UPLOADS);) {
+			while (rs.next()) {
+				uploadIds.add(rs.getString(1));
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+		return uploadIds;
+	}
+
+	@Override
+	public boolean deleteUpload(String jobId, String path, String versionId, String uploadId) {
+		open();
+		try (PreparedStatement partStmt = con.prepareStatement(SQL_DELETE_JOB + jobId + SQL_UPLOAD_PARTS_WHERE_UPLOAD_ID);
+			 PreparedStatement pstmt = con.prepareStatement(SQL_DELETE_JOB + jobId + SQL_UPLOADS_WHERE_PATH_WITH_VERSIONID)) {
+			partStmt.setString(1, uploadId);
+			partStmt.executeUpdate();
+			pstmt.setString(1, path);
+			pstmt.setString(2, versionId == null ? "" : versionId);
+			pstmt.executeUpdate();
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			return false;
+		} 
+		return true;
+	}
+
+	@Override
+	public boolean insertUploadPart(String jobId, String uploadId, int partNumber, String etag) {
+		open();
+		String sql = SQL_REPLACE + jobId + SQL_INSERT_UPLOAD_PART;
+		try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+			pstmt.setString(1, uploadId);
+			pstmt.setInt(2, partNumber);
+			pstmt.setString(3, etag);
+			pstmt.executeUpdate();
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			return false;
+		} 
+		return true;
+	}
+
+	@Override
+	public Map<Integer, String> getUploadParts(String jobId, String uploadId) {
+		open();
+		Map<Integer, String> parts = new HashMap<Integer, String>();
+		String sql = SQL_GET_UPLOAD_PARTS + jobId + SQL_UPLOAD_PARTS_WHERE_UPLOAD_ID;
+		try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+			pstmt.setString(1, uploadId);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					parts.put(rs.getInt(1), rs.getString(2));
+				}
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+		return parts;
+	}
+
+	@Override
+	public boolean updateObjectChecksum(String jobId, String path, String versionId, String checksum) {
+		return updateChecksum(UPDATE_JOB_ID + jobId + UNDER_OBJECTS, path, versionId, checksum);
+	}
+
+	@Override
+	public boolean updateObjectRerunChecksum(String jobId, String path, String versionId, String checksum) {
+		return updateChecksum(UPDATE_JOB_ID + jobId + UNDER_RERUN_OBJECTS, path, versionId, checksum);
+	}
+
+	private boolean updateChecksum(String table, String path, String versionId, String checksum) {
+		open();
+		boolean hasVersionId = versionId != null && !versionId.isEmpty();
+		String sql = table + SQL_SET_CHECKSUM + (hasVersionId ? SQL_WHERE_PATH_WITH_VERSIONID : SQL_WHERE_PATH_WITH_VERSIONID_NULL);
+		try (PreparedStatement pstmt = con.prepareStatement(sql)) {
+			pstmt.setString(1, checksum);
+			pstmt.setString(2, path);
+			if (hasVersionId) {
+				pstmt.setString(3, versionId);
+			}
+			pstmt.executeUpdate();
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+			return false;
+		} 
+		return true;
+	}
+
+	@Override
+	public void createSizeIndex(String jobId, boolean isRerun) {
+		open();
+		// index names are global in SQLite, so the name carries the table
+		String table = jobId + (isRerun ? UNDER_RERUN_OBJECTS : UNDER_OBJECTS);
+		String sql = SQL_CREATE_SIZE_INDEX + table + " ON JOB_" + table + " (size)";
+		try (Statement stmt = con.createStatement()) {
+			stmt.executeUpdate(sql);
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+	}
+
+	@Override
+	public List<MoveData> getToMoveObjectsInfoOrdered(String jobId, boolean isRerun, String order, long minSize, long maxSize, MoveData last, long limit) {
+		open();
+		List<MoveData> resultList = new ArrayList<MoveData>();
+		List<Object> params = new ArrayList<Object>();
+		StringBuilder sql = new StringBuilder(SQL_GET_MOVE_OBJECT_INFO_ORDERED);
+		sql.append(jobId).append(isRerun ? UNDER_RERUN_OBJECTS : UNDER_OBJECTS).append(SQL_ORDERED_WHERE_SIZE);
+		params.add(minSize);
+		params.add(maxSize);
+
+		if (MoverConfig.MOVE_ORDER_SIZE.equals(order)) {
+			if (last != null) {
+				sql.append(SQL_ORDERED_AFTER_SIZE);
+				params.add(last.getSize());
+				params.add(last.getSize());
+				params.add(last.getSequence());
+			}
+			sql.append(SQL_ORDER_BY_SIZE_DESC);
+		} else if (MoverConfig.MOVE_ORDER_MTIME.equals(order)) {
+			if (last != null) {
+				sql.append(SQL_ORDERED_AFTER_MTIME);
+				params.add(last.getmTime());
+				params.add(last.getmTime());
+				params.add(last.getSequence());
+			}
+			sql.append(SQL_ORDER_BY_MTIME_DESC);
+		} else {
+			if (last != null) {
+				sql.append(SQL_ORDERED_AFTER_SEQUENCE);
+				params.add(last.getSequence());
+			}
+			sql.append(SQL_ORDER_BY_SEQUENCE);
+		}
+		params.add(limit);
+
+		try (PreparedStatement pstmt = con.prepareStatement(sql.toString())) {
+			for (int i = 0; i < params.size(); i++) {
+				pstmt.setObject(i + 1, params.get(i));
+			}
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					MoveData data = new MoveData();
+					data.setSequence(rs.getLong(1));
+					data.setPath(rs.getString(2));
+					data.setFile(rs.getInt(3) == 1);
+					data.setSize(rs.getLong(4));
+					data.setObjectState(rs.getInt(5));
+					data.setmTime(rs.getString(6));
+					data.setVersionId(rs.getString(7));
+					data.setETag(rs.getString(8));
+					data.setMultiPartInfo(rs.getString(9));
+					data.setDelete(rs.getInt(10) == 1);
+					data.setLatest(rs.getInt(11) == 1);
+					data.setSkipCheck(rs.getInt(12) == 1);
+					resultList.add(data);
+				}
+			}
+		} catch (SQLException e) {
+			logger.error(e.getMessage());
+		} 
+
+		return resultList;
+	}
 }
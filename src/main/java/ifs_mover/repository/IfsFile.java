@@ -11,17 +11,27 @@
 package ifs_mover.repository;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.ObjectMetadata;
@@ -29,7 +39,10 @@ import com.amazonaws.services.s3.model.ServerSideEncryptionConfiguration;
 import com.amazonaws.services.s3.model.Tag;
 
 import ifs_mover.Config;
+import ifs_mover.MoveData;
+import ifs_mover.MoverConfig;
 import ifs_mover.SyncMode;
+import ifs_mover.Throttle;
 import ifs_mover.Utils;
 import ifs_mover.db.MariaDB;
 
@@ -42,6 +55,8 @@ public class IfsFile implements Repository {
 	private String errMessage;
     private String path;
 
+    private final int LIST_BATCH_SIZE = 1000;
+
     IfsFile(String jobId) {
         this.jobId = jobId;
     }
@@ -99,119 +114,180 @@ public class IfsFile implements Repository {
         }
     }
 
+    // walks the directories with list_thread_count threads, the rows go to the DB LIST_BATCH_SIZE at a time
     private void objectList(String dirPath) {
-        File dir = new File(dirPath);
-		File[] files = dir.listFiles();
-		String filePath = "";
-		Path path;
-        
-		for (int i = 0; i < files.length; i++) {
-			filePath = files[i].getPath();
-			path = Paths.get(filePath);
-			filePath = FilenameUtils.separatorsToSystem(filePath);
-			if (files[i].isDirectory()) {
-				Utils.insertMoveObject(jobId, false, "-", 0, filePath, null, null);
-				Utils.updateJobInfo(jobId, 0);
-				if (!Files.isSymbolicLink(path)) {
-					objectList(files[i].getPath());
-				}
-			}
-			else {
-				BasicFileAttributes attr = null;
-				try {
-					attr = Files.readAttributes(path, BasicFileAttributes.class);
-				} catch (IOException e) {
-					if (files[i].exists()) {
-						Utils.insertMoveObject(jobId, true, "", files[i].length(), filePath, null, null);
-						Utils.updateJobInfo(jobId, files[i].length());
-					} else {
-						logger.warn("deleted : {}", files[i].getPath());
-					}
-					continue;
-				}
-				
-				if (Files.isReadable(path)) {
-					Utils.insertMoveObject(jobId, true, attr.lastModifiedTime().toString(), files[i].length(), filePath, null, null);
-					Utils.updateJobInfo(jobId, files[i].length());
-				} else {
-					logger.warn("unreadable file : {}", files[i].getPath());
-					Utils.insertMoveObject(jobId, true, "", files[i].length(), filePath, null, null);
-					Utils.updateJobInfo(jobId, files[i].length());
-				}
-			}
-		}
-        // DBManager.commit();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, MoverConfig.getInstance().getListThreadCount()));
+        ListBatch batch = new ListBatch();
+        try {
+            pool.invoke(new DirectoryWalker(Paths.get(dirPath), batch));
+        } finally {
+            pool.shutdown();
+        }
+        batch.flush();
+    }
+
+    // the rows listed by all walkers, with their count and size
+    class ListBatch {
+        private List<MoveData> list = new ArrayList<MoveData>();
+        private long size;
+
+        void add(boolean isFile, String mTime, long size, String path) {
+            MoveData data = new MoveData();
+            data.setFile(isFile);
+            data.setmTime(mTime);
+            data.setSize(size);
+            data.setPath(path);
+
+            List<MoveData> full = null;
+            long fullSize = 0;
+            synchronized (this) {
+                list.add(data);
+                this.size += size;
+                if (list.size() >= LIST_BATCH_SIZE) {
+                    full = list;
+                    fullSize = this.size;
+                    list = new ArrayList<MoveData>();
+                    this.size = 0;
+                }
+            }
+            if (full != null) {
+                insert(full, fullSize);
+            }
+        }
+
+        void flush() {
+            List<MoveData> rest;
+            long restSize;
+            synchronized (this) {
+                rest = list;
+                restSize = size;
+                list = new ArrayList<MoveData>();
+                size = 0;
+            }
+            if (!rest.isEmpty()) {
+                insert(rest, restSize);
+            }
+        }
+
+        private void insert(List<MoveData> rows, long rowsSize) {
+            Utils.insertMoveObject(jobId, rows);
+            Utils.updateJobInfo(jobId, rows.size(), rowsSize);
+        }
+    }
+
+    // lists one directory, its subdirectories are walked by forked tasks.
+    // The entries are streamed, a directory of any size holds only the rows of a batch in memory.
+    class DirectoryWalker extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private Path dir;
+        private ListBatch batch;
+
+        DirectoryWalker(Path dir, ListBatch batch) {
+            this.dir = dir;
+            this.batch = batch;
+        }
+
+        @Override
+        protected void compute() {
+            MDC.put("logFileName", "ifs_mover." + jobId + ".log");
+            List<DirectoryWalker> walkers = new ArrayList<DirectoryWalker>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attr = null;
+                    boolean isLink = false;
+                    try {
+                        attr = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        isLink = attr.isSymbolicLink();
+                        if (isLink) {
+                            // a link is listed as what it points to, a linked directory is not walked
+                            attr = Files.readAttributes(entry, BasicFileAttributes.class);
+                        }
+                    } catch (IOException e) {
+                        logger.warn("deleted : {}", entry);
+                        continue;
+                    }
+
+                    String filePath = FilenameUtils.separatorsToSystem(entry.toString());
+                    if (attr.isDirectory()) {
+                        batch.add(false, "-", 0, filePath);
+                        if (!isLink) {
+                            walkers.add(new DirectoryWalker(entry, batch));
+                        }
+                    } else {
+                        batch.add(true, attr.lastModifiedTime().toString(), attr.size(), filePath);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                logger.warn("can't list : {} - {}", dir, e.getMessage());
+            }
+            invokeAll(walkers);
+        }
     }
 
     private void objectListRerun(String dirPath) {
-        File dir = new File(dirPath);
-		File[] files = dir.listFiles();
-		String filePath = "";
-		Path path;
-		String mTime = "";
-		int state = 0;
-		for (int i = 0; i < files.length; i++) {
-			filePath = files[i].getPath();
-			path = Paths.get(filePath);
-			if (files[i].isDirectory()) { 
-				// state = DBManager.stateWhenExistObject(jobId, filePath);
-                state = Utils.getDBInstance().stateWhenExistObject(jobId, filePath);
-				if (state == -1) {
-					Utils.insertRerunMoveObject(jobId, false, "-", 0, filePath, null, null, null);
-					Utils.updateJobRerunInfo(jobId, 0);
-				} else if (state == 3) {
-					Utils.updateRerunSkipObject(jobId, filePath);
-					Utils.updateJobRerunSkipInfo(jobId, 0);
-				} else {
-					Utils.updateToMoveObject(jobId, "-", 0, filePath);
-					Utils.updateJobRerunInfo(jobId, 0);
-				}
-				
-				if (!Files.isSymbolicLink(path)) {
-					objectListRerun(files[i].getPath());
-				}
-			} else {
-				BasicFileAttributes attr = null;
-				try {
-					attr = Files.readAttributes(path, BasicFileAttributes.class);
-				} catch (IOException e) {
-					if (files[i].exists()) {
-						Utils.insertRerunMoveObject(jobId, true, "", files[i].length(), filePath, null, null, null);
-						Utils.updateJobRerunInfo(jobId, files[i].length());
-					} else {
-						logger.warn("deleted : {}", files[i].getPath());
-					}
-					continue;
-				}
-				// state = DBManager.stateWhenExistObject(jobId, filePath);
-                state = Utils.getDBInstance().stateWhenExistObject(jobId, filePath);
-				if (state == -1) {
-					Utils.insertRerunMoveObject(jobId, true, attr.lastModifiedTime().toString(), files[i].length(), filePath, null, null, null);
-					Utils.updateJobRerunInfo(jobId, files[i].length());
-				} else {
-					// mTime = DBManager.getMtime(jobId, filePath);
-                    mTime = Utils.getDBInstance().getMtime(jobId, filePath);
-					if (mTime != null) {
-						if (mTime.compareTo(attr.lastModifiedTime().toString()) == 0) {
-							if (state == 3) {
-								Utils.updateRerunSkipObject(jobId, filePath);
-								Utils.updateJobRerunSkipInfo(jobId, files[i].length());
-							} else {
-								Utils.updateToMoveObject(jobId, attr.lastModifiedTime().toString(), files[i].length(), filePath);
-								Utils.updateJobRerunInfo(jobId, files[i].length());
-							}
-						} else {
-							Utils.updateToMoveObject(jobId, attr.lastModifiedTime().toString(), files[i].length(), filePath);
-							Utils.updateJobRerunInfo(jobId, files[i].length());
-						}
-					} else {
-						Utils.updateToMoveObject(jobId, attr.lastModifiedTime().toString(), files[i].length(), filePath);
-						Utils.updateJobRerunInfo(jobId, files[i].length());
-					}
-				}
-			}
-		}
-        // DBManager.commit();
+        List<Path> dirs = new ArrayList<Path>();
+        String filePath = "";
+        String mTime = "";
+        int state = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(dirPath))) {
+            for (Path entry : stream) {
+                BasicFileAttributes attr = null;
+                boolean isLink = false;
+                try {
+                    attr = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    isLink = attr.isSymbolicLink();
+                    if (isLink) {
+                        attr = Files.readAttributes(entry, BasicFileAttributes.class);
+                    }
+                } catch (IOException e) {
+                    logger.warn("deleted : {}", entry);
+                    continue;
+                }
+
+                filePath = entry.toString();
+                if (attr.isDirectory()) {
+                    state = Utils.getDBInstance().stateWhenExistObject(jobId, filePath);
+                    if (state == -1) {
+                        Utils.insertRerunMoveObject(jobId, false, "-", 0, filePath, null, null, null);
+                        Utils.updateJobRerunInfo(jobId, 0);
+                    } else if (state == 3) {
+                        Utils.updateRerunSkipObject(jobId, filePath);
+                        Utils.updateJobRerunSkipInfo(jobId, 0);
+                    } else {
+                        Utils.updateToMoveObject(jobId, "-", 0, filePath);
+                        Utils.updateJobRerunInfo(jobId, 0);
+                    }
+
+                    if (!isLink) {
+                        dirs.add(entry);
+                    }
+                } else {
+                    long size = attr.size();
+                    String lastModified = attr.lastModifiedTime().toString();
+                    state = Utils.getDBInstance().stateWhenExistObject(jobId, filePath);
+                    if (state == -1) {
+                        Utils.insertRerunMoveObject(jobId, true, lastModified, size, filePath, null, null, null);
+                        Utils.updateJobRerunInfo(jobId, size);
+                    } else {
+                        mTime = Utils.getDBInstance().getMtime(jobId, filePath);
+                        if (mTime != null && mTime.compareTo(lastModified) == 0 && state == 3) {
+                            Utils.updateRerunSkipObject(jobId, filePath);
+                            Utils.updateJobRerunSkipInfo(jobId, size);
+                        } else {
+                            Utils.updateToMoveObject(jobId, lastModified, size, filePath);
+                            Utils.updateJobRerunInfo(jobId, size);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            logger.warn("can't list : {} - {}", dirPath, e.getMessage());
+        }
+
+        // the subdirectories are walked after the stream is closed, so only one directory is open at a time
+        for (Path dir : dirs) {
+            objectListRerun(dir.toString());
+        }
     }
 
     @Override
@@ -263,7 +339,15 @@ public class IfsFile implements Repository {
     public ObjectData getObject(String path) {
         ObjectData data = new ObjectData();
         File file = new File(path);
-        data.setFile(file);
+        if (Throttle.getInstance().isBandwidthLimited(isSource)) {
+            try {
+                data.setInputStream(Throttle.getInstance().wrap(new FileInputStream(file), isSource));
+            } catch (FileNotFoundException e) {
+                throw new AmazonClientException(e.getMessage(), e);
+            }
+        } else {
+            data.setFile(file);
+        }
         data.setSize(file.length());
         return data;
     }
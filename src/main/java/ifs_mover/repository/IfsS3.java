@@ -12,18 +12,26 @@ package ifs_mover.repository;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
@@ -35,12 +43,17 @@ import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.BucketPolicy;
 import com.amazonaws.services.s3.model.BucketVersioningConfiguration;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.GetBucketEncryptionRequest;
 import com.amazonaws.services.s3.model.GetBucketEncryptionResult;
 import com.amazonaws.services.s3.model.GetBucketPolicyRequest;
@@ -51,12 +64,18 @@ import com.amazonaws.services.s3.model.GetObjectTaggingRequest;
 import com.amazonaws.services.s3.model.GetObjectTaggingResult;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ListVersionsRequest;
+import com.amazonaws.services.s3.model.MultipartUpload;
+import com.amazonaws.services.s3.model.MultipartUploadListing;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.ObjectTagging;
 import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
@@ -73,8 +92,12 @@ import com.amazonaws.services.s3.model.UploadPartResult;
 import com.amazonaws.services.s3.model.VersionListing;
 
 import ifs_mover.Config;
+import ifs_mover.InflightBytes;
 import ifs_mover.MoveData;
+import ifs_mover.MoverConfig;
+import ifs_mover.MoverExecutors;
 import ifs_mover.SyncMode;
+import ifs_mover.Throttle;
 import ifs_mover.Utils;
 import ifs_mover.db.MariaDB;
 
@@ -111,6 +134,15 @@ public class IfsS3 implements Repository, S3 {
 	private final int TIMEOUT = 1200;
 	private final int RETRY_COUNT = 2;
 
+	private final String LIST_DELIMITER = "/";
+	private final int MAX_PARTITION_DEPTH = 5;
+	// keys without a delimiter are split at the characters found in the keys, at most this many listings to find them
+	private final int MAX_SAMPLE_LISTINGS = 256;
+	// U+10FFFF, the largest character, a marker of prefix + this skips the keys under prefix
+	private final String MAX_CHARACTER = "\uDBFF\uDFFF";
+	private final int TARGET_DB_THREAD_COUNT = 10;
+	private final int TARGET_QUEUE_SIZE = 64;
+
 	private final String LOG_SOURCE_INVALID_ACCESS = "source - The access key is invalid.";
 	private final String LOG_SOURCE_INVALID_SECRET = "source - The secret key is invalid.";
 	private final String LOG_TARGET_INVALID_ACCESS = "target - The access key is invalid.";
@@ -211,7 +243,7 @@ public class IfsS3 implements Repository, S3 {
 
     public int checkClient() {
         try {
-			client = createClient(isAWS, isSecure, config.getEndPoint(), config.getAccessKey(), config.getSecretKey());
+			client = createClient(isAWS, isSecure, config.getEndPoint(), config.getAccessKey(), config.getSecretKey(), RETRY_COUNT);
 		} catch (SdkClientException e) {
 			if (isSource) {
 				logger.error(LOG_SOURCE_NOT_REGION);
@@ -236,7 +268,7 @@ public class IfsS3 implements Repository, S3 {
         return NO_ERROR;
     }
 
-    private AmazonS3 createClient(boolean isAWS, boolean isSecure, String URL, String AccessKey, String SecretKey) throws SdkClientException, IllegalArgumentException{
+    private AmazonS3 createClient(boolean isAWS, boolean isSecure, String URL, String AccessKey, String SecretKey, int maxErrorRetry) throws SdkClientException, IllegalArgumentException{
 		ClientConfiguration config;
 
 		if (isSecure) {
@@ -246,7 +278,8 @@ public class IfsS3 implements Repository, S3 {
 		}
 
 		config.setSignerOverride(AWS_S3_V4_SIGNER_TYPE);
-		config.setMaxErrorRetry(RETRY_COUNT);
+		config.setMaxErrorRetry(maxErrorRetry);
+		config.setMaxConnections(getMaxConnections());
 		config.setConnectionTimeout(TIMEOUT * MILLISECONDS);
 		config.setSocketTimeout(TIMEOUT * MILLISECONDS);
 		AmazonS3ClientBuilder clientBuilder = AmazonS3ClientBuilder.standard();
@@ -265,6 +298,19 @@ public class IfsS3 implements Repository, S3 {
 		return clientBuilder.build();
 	}
 
+	// each Mover has its own client, it has at most its own object, the small object threads and its parts open at once
+	// (a hedged request opens a second connection), the pool is never smaller than the SDK default
+	private int getMaxConnections() {
+		MoverConfig moverConfig = MoverConfig.getInstance();
+		int objects = 1 + moverConfig.getSmallObjectThreads();
+		int parts = Math.max(moverConfig.getPartThreadCount(), Math.max(moverConfig.getHugeLanePartThreadCount(), moverConfig.getFilePartThreadCount()));
+		int connections = objects + parts;
+		if (moverConfig.isHedge()) {
+			connections *= 2;
+		}
+		return Math.max(ClientConfiguration.DEFAULT_MAX_CONNECTIONS, connections);
+	}
+
     private int existBucket(boolean isCheck, String bucket) {
 		int result = 0;
 		try {
@@ -537,10 +583,13 @@ public class IfsS3 implements Repository, S3 {
 
 	private void objectList(boolean isRerun) {
 		long count = 0L;
-		ExecutorService executor = Executors.newFixedThreadPool(10);
+		ExecutorService executor = MoverExecutors.newFixedThreadPool(10);
+		int listThreadCount = MoverConfig.getInstance().getListThreadCount();
 		logger.info("rerun : {}", isRerun);
 		try {
-			if (!targetVersioning) {
+			if (listThreadCount > 1 && (!targetVersioning || !isVersioning)) {
+				listPartitions(new SourcePageSink(isRerun, executor), listThreadCount);
+			} else if (!targetVersioning) {
 				ListObjectsRequest request = null;
 				if (config.getPrefix() != null && !config.getPrefix().isEmpty()) {
 					request = new ListObjectsRequest().withBucketName(config.getBucket()).withPrefix(config.getPrefix());
@@ -549,11 +598,11 @@ public class IfsS3 implements Repository, S3 {
 				}
 				ObjectListing objectListing;
 				do {
+					Throttle.getInstance().request(isSource);
 					objectListing = client.listObjects(request);
 					count += objectListing.getObjectSummaries().size();
 					logger.info("listObjects ... {}", count);
-					DBWorker dbworker = new DBWorker(isRerun, false, false, jobId, objectListing);
-					executor.execute(dbworker);
+					executeDBWorker(executor, new DBWorker(isRerun, false, false, jobId, objectListing), objectListing.getObjectSummaries().size());
 					request.setMarker(objectListing.getNextMarker());
 				} while (objectListing.isTruncated());
 			} else {
@@ -566,11 +615,11 @@ public class IfsS3 implements Repository, S3 {
 					}
 					VersionListing listing = null;
 					do {
+						Throttle.getInstance().request(isSource);
 						listing = client.listVersions(request);
 						count += listing.getVersionSummaries().size();
 						logger.info("listVersions ... {}", count);
-						DBWorker dbworker = new DBWorker(isRerun, true, false, jobId, listing);
-						executor.execute(dbworker);
+						executeDBWorker(executor, new DBWorker(isRerun, true, false, jobId, listing), listing.getVersionSummaries().size());
 						request.setKeyMarker(listing.getNextKeyMarker());
 						request.setVersionIdMarker(listing.getNextVersionIdMarker());
 						logger.info("next key marker : {}", listing.getNextKeyMarker());
@@ -585,11 +634,11 @@ public class IfsS3 implements Repository, S3 {
 					}
 					ObjectListing objectListing;
 					do {
+						Throttle.getInstance().request(isSource);
 						objectListing = client.listObjects(request);
 						count += objectListing.getObjectSummaries().size();
 						logger.info("listObjects ... {}", count);
-						DBWorker dbworker = new DBWorker(isRerun, false, false, jobId, objectListing);
-						executor.execute(dbworker);
+						executeDBWorker(executor, new DBWorker(isRerun, false, false, jobId, objectListing), objectListing.getObjectSummaries().size());
 						request.setMarker(objectListing.getNextMarker());
 					} while (objectListing.isTruncated());
 				}
@@ -696,12 +745,14 @@ public class IfsS3 implements Repository, S3 {
 				getObjectAclRequest = new GetObjectAclRequest(bucket, key).withVersionId(versionId);
 			}
 		}
+		Throttle.getInstance().request(isSource);
 		s3Object = client.getObject(getObjectRequest);
 		data.setS3Object(s3Object);
 		data.setMetadata(s3Object.getObjectMetadata());
-		data.setInputStream(s3Object.getObjectContent());
+		data.setInputStream(Throttle.getInstance().wrap(s3Object.getObjectContent(), isSource));
 		data.setSize(s3Object.getObjectMetadata().getContentLength());
 		if (isACL) {
+			Throttle.getInstance().request(isSource);
 			data.setAcl(client.getObjectAcl(getObjectAclRequest));
 		}
 
@@ -726,12 +777,14 @@ public class IfsS3 implements Repository, S3 {
 				getObjectAclRequest = new GetObjectAclRequest(bucket, key).withVersionId(versionId);
 			}
 		}
+		Throttle.getInstance().request(isSource);
 		s3Object = client.getObject(getObjectRequest);
 		data.setS3Object(s3Object);
 		data.setMetadata(s3Object.getObjectMetadata());
-		data.setInputStream(s3Object.getObjectContent());
+		data.setInputStream(Throttle.getInstance().wrap(s3Object.getObjectContent(), isSource));
 		data.setSize(s3Object.getObjectMetadata().getContentLength());
 		if (isACL) {
+			Throttle.getInstance().request(isSource);
 			data.setAcl(client.getObjectAcl(getObjectAclRequest));
 		}
 		return data;
@@ -755,11 +808,13 @@ public class IfsS3 implements Repository, S3 {
 				getObjectAclRequest = new GetObjectAclRequest(bucket, key).withVersionId(versionId);
 			}
 		}
+		Throttle.getInstance().request(isSource);
 		s3Object = client.getObject(getObjectRequest);
 		data.setS3Object(s3Object);
-		data.setInputStream(s3Object.getObjectContent());
+		data.setInputStream(Throttle.getInstance().wrap(s3Object.getObjectContent(), isSource));
 		data.setSize(s3Object.getObjectMetadata().getContentLength());
 		if (isACL) {
+			Throttle.getInstance().request(isSource);
 			data.setAcl(client.getObjectAcl(getObjectAclRequest));
 		}
 		return data;
@@ -768,9 +823,11 @@ public class IfsS3 implements Repository, S3 {
 	@Override
 	public String startMultipart(AmazonS3 client, String bucket, String key, ObjectMetadata objectMetadata) {
 		if (!isMetadata) {
+			Throttle.getInstance().request(isSource);
 			InitiateMultipartUploadResult initMultipart = client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key, new ObjectMetadata()));
 			return initMultipart.getUploadId();
 		} else {
+			Throttle.getInstance().request(isSource);
 			InitiateMultipartUploadResult initMultipart = client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key, objectMetadata));
 			return initMultipart.getUploadId();
 		}
@@ -778,16 +835,73 @@ public class IfsS3 implements Repository, S3 {
 
 	@Override
 	public String uploadPart(AmazonS3 client, String bucket, String key, String uploadId, InputStream is, int partNumber, long partSize) {
+		Throttle.getInstance().request(isSource);
 		UploadPartResult partResult = client.uploadPart(new UploadPartRequest().withBucketName(bucket).withKey(key)
-			.withUploadId(uploadId).withInputStream(is).withPartNumber(partNumber).withPartSize(partSize));
+			.withUploadId(uploadId).withInputStream(Throttle.getInstance().wrap(is, isSource)).withPartNumber(partNumber).withPartSize(partSize));
 		return partResult.getETag();
 	}
 
 	@Override
 	public CompleteMultipartUploadResult completeMultipart(AmazonS3 client, String bucket, String key, String uploadId, List<PartETag> list) {
+		Throttle.getInstance().request(isSource);
 		return client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, list));
 	}
 
+	@Override
+	public List<PartSummary> listParts(AmazonS3 client, String bucket, String key, String uploadId) {
+		List<PartSummary> parts = new ArrayList<PartSummary>();
+		ListPartsRequest request = new ListPartsRequest(bucket, key, uploadId);
+		PartListing partListing;
+		do {
+			Throttle.getInstance().request(isSource);
+			partListing = client.listParts(request);
+			parts.addAll(partListing.getParts());
+			request.setPartNumberMarker(partListing.getNextPartNumberMarker());
+		} while (partListing.isTruncated());
+		return parts;
+	}
+
+	@Override
+	public void abortMultipart(AmazonS3 client, String bucket, String key, String uploadId) {
+		Throttle.getInstance().request(isSource);
+		client.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+	}
+
+	// aborts the multipart uploads under the target prefix that started before the given time,
+	// except keepUploadIds. returns the number of aborted uploads
+	public int abortStaleUploads(Set<String> keepUploadIds, Date before) {
+		int count = 0;
+		String prefix = setTargetPrefix("");
+		ListMultipartUploadsRequest request = new ListMultipartUploadsRequest(config.getBucket());
+		if (!prefix.isEmpty()) {
+			request.setPrefix(prefix);
+		}
+
+		MultipartUploadListing listing;
+		do {
+			Throttle.getInstance().request(isSource);
+			listing = client.listMultipartUploads(request);
+			for (MultipartUpload upload : listing.getMultipartUploads()) {
+				if (keepUploadIds.contains(upload.getUploadId()) || upload.getInitiated().after(before)) {
+					logger.info("keep upload : {}, upload id : {}, initiated : {}", upload.getKey(), upload.getUploadId(), upload.getInitiated());
+					continue;
+				}
+
+				try {
+					abortMultipart(client, config.getBucket(), upload.getKey(), upload.getUploadId());
+					logger.info("abort upload : {}, upload id : {}, initiated : {}", upload.getKey(), upload.getUploadId(), upload.getInitiated());
+					count++;
+				} catch (AmazonServiceException ase) {
+					logger.warn("failed to abort upload : {}, upload id : {} - {}", upload.getKey(), upload.getUploadId(), ase.getErrorCode());
+				}
+			}
+			request.setKeyMarker(listing.getNextKeyMarker());
+			request.setUploadIdMarker(listing.getNextUploadIdMarker());
+		} while (listing.isTruncated());
+
+		return count;
+	}
+
 	@Override
 	public void setTagging(AmazonS3 client, String bucket, String key, String versionId, List<Tag> tagSet) {
 		if (isTag) {
@@ -797,6 +911,7 @@ public class IfsS3 implements Repository, S3 {
 			} else {
 				setObjectTaggingRequest = new SetObjectTaggingRequest(bucket, key, new ObjectTagging(tagSet));
 			}
+			Throttle.getInstance().request(isSource);
 			client.setObjectTagging(setObjectTaggingRequest);
 		}
 	}
@@ -804,25 +919,67 @@ public class IfsS3 implements Repository, S3 {
 	@Override
 	public PutObjectResult putObject(AmazonS3 client, boolean isFile, String bucket, String key, ObjectData data, long size) {
 		PutObjectRequest putObjectRequest = null;
-		if (data.getFile() != null) {
+		if (data.getFile() != null && !Throttle.getInstance().isBandwidthLimited(isSource)) {
 			putObjectRequest = new PutObjectRequest(bucket, key, data.getFile());
 		} else {
+			if (data.getFile() != null) {
+				// read the file as a stream so the bandwidth limit can apply, data.close() closes it
+				try {
+					data.setInputStream(new FileInputStream(data.getFile()));
+				} catch (FileNotFoundException e) {
+					throw new AmazonClientException(e.getMessage(), e);
+				}
+				data.setSize(data.getFile().length());
+			}
 			if (data.getMetadata() == null) {
 				ObjectMetadata meta = new ObjectMetadata();
 				meta.setContentLength(data.getSize());
 				data.setMetadata(meta);
 			}
-			putObjectRequest = new PutObjectRequest(bucket, key, data.getInputStream(), data.getMetadata());
+			putObjectRequest = new PutObjectRequest(bucket, key, Throttle.getInstance().wrap(data.getInputStream(), isSource), data.getMetadata());
 		}
 
+		Throttle.getInstance().request(isSource);
 		return client.putObject(putObjectRequest);
 	}
 
+	@Override
+	public CopyObjectResult copyObject(AmazonS3 client, String sourceBucket, String sourceKey, String versionId, String bucket, String key) {
+		CopyObjectRequest copyObjectRequest = new CopyObjectRequest(sourceBucket, sourceKey, versionId, bucket, key);
+		if (!isMetadata) {
+			copyObjectRequest.setNewObjectMetadata(new ObjectMetadata());
+		}
+		if (!isTag) {
+			copyObjectRequest.setNewObjectTagging(new ObjectTagging(new ArrayList<Tag>()));
+		}
+		Throttle.getInstance().request(isSource);
+		return client.copyObject(copyObjectRequest);
+	}
+
+	@Override
+	public PartETag copyPart(AmazonS3 client, String sourceBucket, String sourceKey, String versionId, String bucket, String key, String uploadId, int partNumber, long start, long end) {
+		CopyPartRequest copyPartRequest = new CopyPartRequest()
+			.withSourceBucketName(sourceBucket)
+			.withSourceKey(sourceKey)
+			.withSourceVersionId(versionId)
+			.withDestinationBucketName(bucket)
+			.withDestinationKey(key)
+			.withUploadId(uploadId)
+			.withPartNumber(partNumber)
+			.withFirstByte(start)
+			.withLastByte(end);
+		Throttle.getInstance().request(isSource);
+		CopyPartResult copyPartResult = client.copyPart(copyPartRequest);
+		return copyPartResult.getPartETag();
+	}
+
 	@Override
 	public void deleteObject(AmazonS3 client, String bucket, String key, String versionId) {
 		if (versionId != null) {
+			Throttle.getInstance().request(isSource);
 			client.deleteVersion(bucket, key, versionId);
 		} else {
+			Throttle.getInstance().request(isSource);
 			client.deleteObject(bucket, key);
 		}
 	}
@@ -844,6 +1001,7 @@ public class IfsS3 implements Repository, S3 {
 			return meta;
 		}
 		GetObjectMetadataRequest getObjectMetadataRequest = new GetObjectMetadataRequest(bucket, key).withVersionId(versionId);
+		Throttle.getInstance().request(isSource);
 		return client.getObjectMetadata(getObjectMetadataRequest);
 	}
 
@@ -855,6 +1013,7 @@ public class IfsS3 implements Repository, S3 {
 
 		List<Tag> list = null;
 		
+		Throttle.getInstance().request(isSource);
 		GetObjectTaggingResult tagResult = client.getObjectTagging(new GetObjectTaggingRequest(bucket, key).withVersionId(versionId));
 		if (tagResult != null && !tagResult.getTagSet().isEmpty()) {
 			list = tagResult.getTagSet();
@@ -862,6 +1021,252 @@ public class IfsS3 implements Repository, S3 {
 
 		return list;
 	}
+
+	// a key range of the bucket listed by one thread : the keys under prefix after marker, up to last (null : no end)
+	class ListPartition {
+		private String prefix;
+		private String marker;
+		private String last;
+
+		ListPartition(String prefix, String marker, String last) {
+			this.prefix = prefix;
+			this.marker = marker;
+			this.last = last;
+		}
+
+		@Override
+		public String toString() {
+			return prefix + " (" + (marker == null ? "" : marker) + " ~ " + (last == null ? "" : last) + "]";
+		}
+	}
+
+	// where the listing pages go : the source pages to the DBWorkers, the target pages to the DBWorkerTagets
+	abstract class PageSink {
+		abstract void add(ObjectListing listing);
+	}
+
+	class SourcePageSink extends PageSink {
+		private boolean isRerun;
+		private ExecutorService dbExecutor;
+
+		SourcePageSink(boolean isRerun, ExecutorService dbExecutor) {
+			this.isRerun = isRerun;
+			this.dbExecutor = dbExecutor;
+		}
+
+		@Override
+		void add(ObjectListing listing) {
+			executeDBWorker(dbExecutor, new DBWorker(isRerun, false, false, jobId, listing), listing.getObjectSummaries().size());
+		}
+	}
+
+	class TargetPageSink extends PageSink {
+		private ExecutorService dbExecutor;
+
+		TargetPageSink(ExecutorService dbExecutor) {
+			this.dbExecutor = dbExecutor;
+		}
+
+		@Override
+		void add(ObjectListing listing) {
+			List<MoveData> list = new ArrayList<MoveData>();
+			for (S3ObjectSummary objectSummary : listing.getObjectSummaries()) {
+				MoveData data = new MoveData();
+				data.setPath(objectSummary.getKey());
+				data.setVersionId("null");
+				data.setSize(objectSummary.getSize());
+				data.setETag(objectSummary.getETag());
+				list.add(data);
+			}
+			dbExecutor.execute(new DBWorkerTaget(jobId, list));
+		}
+	}
+
+	// lists the bucket with list_thread_count threads, a key range at a time
+	private void listPartitions(final PageSink sink, int threadCount) {
+		String prefix = config.getPrefix() != null ? config.getPrefix() : "";
+		final List<ListPartition> partitions = new ArrayList<ListPartition>();
+		final AtomicLong total = new AtomicLong(discoverPartitions(sink, prefix, 0, partitions));
+		logger.info("list partitions : {}, list threads : {}", partitions.size(), threadCount);
+
+		ExecutorService listExecutor = MoverExecutors.newFixedThreadPool(threadCount);
+		List<Future<Long>> futures = new ArrayList<Future<Long>>();
+		for (int i = 0; i < partitions.size(); i++) {
+			final int number = i + 1;
+			futures.add(listExecutor.submit(new Callable<Long>() {
+				@Override
+				public Long call() {
+					return listPartition(sink, partitions.get(number - 1), number, partitions.size(), total);
+				}
+			}));
+		}
+		listExecutor.shutdown();
+
+		try {
+			for (Future<Long> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new AmazonClientException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			listExecutor.shutdownNow();
+		}
+		logger.info("listObjects ... {}", total.get());
+	}
+
+	// splits the keys under prefix by the delimiter, each common prefix is a partition.
+	// the keys directly under prefix are put in the DB here. With only one common prefix the split goes one level down,
+	// a prefix without delimiters in its keys and more than one page of them is split by the characters after it.
+	private long discoverPartitions(PageSink sink, String prefix, int depth, List<ListPartition> partitions) {
+		ListObjectsRequest request = new ListObjectsRequest().withBucketName(config.getBucket()).withPrefix(prefix).withDelimiter(LIST_DELIMITER);
+		List<String> commonPrefixes = new ArrayList<String>();
+		long count = 0;
+		ObjectListing listing;
+		do {
+			Throttle.getInstance().request(isSource);
+			listing = client.listObjects(request);
+			if (count == 0 && commonPrefixes.isEmpty() && listing.isTruncated() && listing.getCommonPrefixes().isEmpty()) {
+				List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+				sink.add(listing);
+				splitByCharacters(prefix, summaries.get(summaries.size() - 1).getKey(), partitions);
+				return summaries.size();
+			}
+			int size = listing.getObjectSummaries().size();
+			if (size > 0) {
+				count += size;
+				sink.add(listing);
+			}
+			commonPrefixes.addAll(listing.getCommonPrefixes());
+			request.setMarker(listing.getNextMarker());
+		} while (listing.isTruncated());
+
+		if (commonPrefixes.size() == 1 && count == 0 && depth < MAX_PARTITION_DEPTH) {
+			return discoverPartitions(sink, commonPrefixes.get(0), depth + 1, partitions);
+		}
+		for (String commonPrefix : commonPrefixes) {
+			partitions.add(new ListPartition(commonPrefix, null, null));
+		}
+		return count;
+	}
+
+	// the keys after marker are split before each character found after prefix, one listing of a single key per character.
+	// When all of them have the same next character the split goes one character down.
+	private void splitByCharacters(String prefix, String marker, List<ListPartition> partitions) {
+		List<String> boundaries = sampleNextCharacters(prefix, marker);
+		int depth = 0;
+		while (boundaries.size() == 1 && depth < MAX_PARTITION_DEPTH) {
+			boundaries = sampleNextCharacters(boundaries.get(0), marker);
+			depth++;
+		}
+
+		// keys up to marker are already listed, the ranges before it are left out
+		String last = marker;
+		for (String boundary : boundaries) {
+			if (compareKeys(boundary, last) > 0) {
+				partitions.add(new ListPartition(prefix, last, boundary));
+				last = boundary;
+			}
+		}
+		partitions.add(new ListPartition(prefix, last, null));
+	}
+
+	// prefix + each next character of the keys under prefix after marker, in key order
+	private List<String> sampleNextCharacters(String prefix, String marker) {
+		List<String> result = new ArrayList<String>();
+		ListObjectsRequest request = new ListObjectsRequest().withBucketName(config.getBucket()).withPrefix(prefix).withMaxKeys(1);
+		String next = compareKeys(marker, prefix) > 0 ? marker : null;
+		for (int i = 0; i < MAX_SAMPLE_LISTINGS; i++) {
+			request.setMarker(next);
+			Throttle.getInstance().request(isSource);
+			List<S3ObjectSummary> summaries = client.listObjects(request).getObjectSummaries();
+			if (summaries.isEmpty()) {
+				break;
+			}
+			String key = summaries.get(0).getKey();
+			if (key.length() <= prefix.length()) {
+				next = key;
+				continue;
+			}
+			String boundary = key.substring(0, prefix.length() + Character.charCount(key.codePointAt(prefix.length())));
+			result.add(boundary);
+			next = boundary + MAX_CHARACTER;
+		}
+		return result;
+	}
+
+	// S3 orders keys by their UTF-8 bytes, that is by code point, String.compareTo differs on surrogate pairs
+	static int compareKeys(String a, String b) {
+		int i = 0;
+		int j = 0;
+		while (i < a.length() && j < b.length()) {
+			int ca = a.codePointAt(i);
+			int cb = b.codePointAt(j);
+			if (ca != cb) {
+				return ca < cb ? -1 : 1;
+			}
+			i += Character.charCount(ca);
+			j += Character.charCount(cb);
+		}
+		if (i < a.length()) {
+			return 1;
+		}
+		return j < b.length() ? -1 : 0;
+	}
+
+	private long listPartition(PageSink sink, ListPartition partition, int number, int partitionCount, AtomicLong total) {
+		MDC.put("logFileName", "ifs_mover." + jobId + ".log");
+		try {
+			ListObjectsRequest request = new ListObjectsRequest().withBucketName(config.getBucket()).withPrefix(partition.prefix).withMarker(partition.marker);
+			long count = 0;
+			boolean isEnd = false;
+			ObjectListing listing;
+			do {
+				Throttle.getInstance().request(isSource);
+				listing = client.listObjects(request);
+				List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+				if (summaries.isEmpty()) {
+					break;
+				}
+				String lastKey = summaries.get(summaries.size() - 1).getKey();
+				if (partition.last != null) {
+					// the keys after the range belong to the next partition
+					while (!summaries.isEmpty() && compareKeys(summaries.get(summaries.size() - 1).getKey(), partition.last) > 0) {
+						summaries.remove(summaries.size() - 1);
+						isEnd = true;
+					}
+				}
+				if (!summaries.isEmpty()) {
+					count += summaries.size();
+					sink.add(listing);
+					logger.info("listObjects ... {}", total.addAndGet(summaries.size()));
+				}
+				request.setMarker(listing.getNextMarker() != null ? listing.getNextMarker() : lastKey);
+			} while (listing.isTruncated() && !isEnd);
+
+			if (count > 0) {
+				logger.info("list partition {}/{} {} : {} objects", number, partitionCount, partition, count);
+			}
+			return count;
+		} finally {
+			MDC.remove("logFileName");
+		}
+	}
+
+	// the listing waits while the pages waiting for the DB hold too many in-flight bytes
+	private void executeDBWorker(ExecutorService executor, DBWorker dbworker, int keyCount) {
+		try {
+			dbworker.inflightPermits = InflightBytes.getInstance().acquireListing(keyCount);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		executor.execute(dbworker);
+	}
+
 	class DBWorker implements Runnable {
 		private boolean isRerun;
 		private boolean isVersioning;
@@ -879,6 +1284,8 @@ public class IfsS3 implements Repository, S3 {
 		private ObjectListing objectListing;
 		private VersionListing versionListing;
 		private List<MoveData> moveList;
+		// the in-flight bytes of the listing page, given back once it is in the DB
+		private int inflightPermits;
 
 		// DBWorker(boolean isRerun, boolean isVersioning, String jobId, boolean isFile, String mTime, long size, String path, String etag, String tag) {
 		// 	this.isRerun = isRerun;
@@ -933,66 +1340,73 @@ public class IfsS3 implements Repository, S3 {
 
 		@Override
 		public void run() {
-			long size = 0L;
-			if (isRerun) {
-				if (isVersioning) {
-					size = Utils.insertRerunObjectVersion(jobId, versionListing);
-					Utils.updateJobRerunInfo(jobId, versionListing.getVersionSummaries().size(), size);
-				} else {
-					size = Utils.insertRerunObject(jobId, objectListing);
-					Utils.updateJobRerunInfo(jobId, objectListing.getObjectSummaries().size(), size);
-				}
-			} else {
-				if (isVersioning) {
-					size = Utils.insertMoveObjectVersion(jobId, versionListing);
-					Utils.updateJobInfo(jobId, versionListing.getVersionSummaries().size(), size);
+			try {
+				long size = 0L;
+				if (isRerun) {
+					if (isVersioning) {
+						size = Utils.insertRerunObjectVersion(jobId, versionListing);
+						Utils.updateJobRerunInfo(jobId, versionListing.getVersionSummaries().size(), size);
+					} else {
+						size = Utils.insertRerunObject(jobId, objectListing);
+						Utils.updateJobRerunInfo(jobId, objectListing.getObjectSummaries().size(), size);
+					}
 				} else {
-					if (isInventoryFile) {
-						size = Utils.insertMoveObject(jobId, moveList);
+					if (isVersioning) {
+						size = Utils.insertMoveObjectVersion(jobId, versionListing);
+						Utils.updateJobInfo(jobId, versionListing.getVersionSummaries().size(), size);
 					} else {
-						size = Utils.insertMoveObject(jobId, objectListing);
+						if (isInventoryFile) {
+							size = Utils.insertMoveObject(jobId, moveList);
+						} else {
+							size = Utils.insertMoveObject(jobId, objectListing);
+						}
+						Utils.updateJobInfo(jobId, objectListing.getObjectSummaries().size(), size);
 					}
-					Utils.updateJobInfo(jobId, objectListing.getObjectSummaries().size(), size);
 				}
+			} finally {
+				InflightBytes.getInstance().release(inflightPermits);
 			}
 		}
 	}
 
+	// the objects of one target listing page, put in the DB with one batch
 	class DBWorkerTaget implements Runnable {
 		private String jobId;
-		private String path;
-		private String versionId;
-		private long size;
-		private String etag;
+		private List<MoveData> list;
 
-		DBWorkerTaget(String jobId, String path, String versionId, long size, String etag) {
+		DBWorkerTaget(String jobId, List<MoveData> list) {
 			this.jobId = jobId;
-			this.path = path;
-			this.versionId = versionId;
-			this.size = size;
-			this.etag = etag;
+			this.list = list;
 		}
 
 		@Override
 		public void run() {
-			Utils.insertTargetObject(jobId, path, versionId, size, etag);
+			if (!list.isEmpty()) {
+				Utils.insertTargetObject(jobId, list);
+			}
 		}
 	}
 
 	@Override
 	public PutObjectResult putObject(AmazonS3 client, String bucketName, String key, InputStream input, ObjectMetadata metadata) {
-		PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, key, input, metadata);
+		PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, key, Throttle.getInstance().wrap(input, isSource), metadata);
 		putObjectRequest.getRequestClientOptions().setReadLimit(0);
+		Throttle.getInstance().request(isSource);
 		return client.putObject(putObjectRequest);
 	}
 
 	@Override
 	public void makeTargetObjectList(boolean targetVersioning) {
 		if (config.isTargetSync()) {
-			ExecutorService executor = Executors.newFixedThreadPool(1000);
+			// the listing waits when the DB is TARGET_QUEUE_SIZE pages behind
+			ExecutorService executor = MoverExecutors.newBoundedThreadPool(TARGET_DB_THREAD_COUNT, TARGET_QUEUE_SIZE);
+			int listThreadCount = MoverConfig.getInstance().getListThreadCount();
 			
 			try {
-				if (!targetVersioning) {
+				if (!targetVersioning && listThreadCount > 1) {
+					listPartitions(new TargetPageSink(executor), listThreadCount);
+				} else if (!targetVersioning) {
+					PageSink sink = new TargetPageSink(executor);
 					ListObjectsRequest request = null;
 					if (config.getPrefix() != null && !config.getPrefix().isEmpty()) {
 						request = new ListObjectsRequest().withBucketName(config.getBucket()).withPrefix(config.getPrefix());
@@ -1001,11 +1415,9 @@ public class IfsS3 implements Repository, S3 {
 					}
 					ObjectListing result;
 					do {
+						Throttle.getInstance().request(isSource);
 						result = client.listObjects(request);
-						for (S3ObjectSummary objectSummary : result.getObjectSummaries()) {		
-							DBWorkerTaget dbworker = new DBWorkerTaget(jobId, objectSummary.getKey(), "null", objectSummary.getSize(), objectSummary.getETag());
-							executor.execute(dbworker);
-						}
+						sink.add(result);
 						request.setMarker(result.getNextMarker());
 					} while (result.isTruncated());
 				} else {
@@ -1017,13 +1429,20 @@ public class IfsS3 implements Repository, S3 {
 					}
 					VersionListing listing = null;
 					do {
+						Throttle.getInstance().request(isSource);
 						listing = client.listVersions(request);
+						List<MoveData> list = new ArrayList<MoveData>();
 						for (S3VersionSummary versionSummary : listing.getVersionSummaries()) {
 							if (!versionSummary.isDeleteMarker()) {
-								DBWorkerTaget dbworker = new DBWorkerTaget(jobId, versionSummary.getKey(), versionSummary.getVersionId(), versionSummary.getSize(), versionSummary.getETag());
-								executor.execute(dbworker);
+								MoveData data = new MoveData();
+								data.setPath(versionSummary.getKey());
+								data.setVersionId(versionSummary.getVersionId());
+								data.setSize(versionSummary.getSize());
+								data.setETag(versionSummary.getETag());
+								list.add(data);
 							}
 						}
+						executor.execute(new DBWorkerTaget(jobId, list));
 						request.setKeyMarker(listing.getNextKeyMarker());
 						request.setVersionIdMarker(listing.getNextVersionIdMarker());
 					} while (listing.isTruncated());
@@ -1073,6 +1492,7 @@ public class IfsS3 implements Repository, S3 {
 					setObjectAclRequest = new SetObjectAclRequest(bucket, key, acl);
 				}
 			}
+			Throttle.getInstance().request(isSource);
 			client.setObjectAcl(setObjectAclRequest);
 		}
 	}
@@ -1086,15 +1506,17 @@ public class IfsS3 implements Repository, S3 {
 			} else {
 				getObjectAclRequest = new GetObjectAclRequest(bucket, key);
 			}
+			Throttle.getInstance().request(isSource);
 			return client.getObjectAcl(getObjectAclRequest);
 		}
 		return null;
 	}
 
+	// the clients of the movers, their failed requests are retried by the MoveRetryPolicy of the job
 	public AmazonS3 createS3Clients() {
 		AmazonS3 client = null;
 		try {
-			client = createClient(isAWS, isSecure, config.getEndPoint(), config.getAccessKey(), config.getSecretKey());
+			client = createClient(isAWS, isSecure, config.getEndPoint(), config.getAccessKey(), config.getSecretKey(), 0);
 		} catch (SdkClientException e) {
 			logger.error("create client failed. {}", e.getMessage());
 		} catch (IllegalArgumentException e) {
@@ -1172,7 +1594,7 @@ public class IfsS3 implements Repository, S3 {
 
 	private void objectList(boolean isRerun, String inventoryFileName) {
 		long count = 0L;
-		ExecutorService executor = Executors.newFixedThreadPool(10);
+		ExecutorService executor = MoverExecutors.newFixedThreadPool(10);
 		logger.info("rerun : {}", isRerun);
 
 		File file = new File(inventoryFileName);
@@ -1189,14 +1611,14 @@ public class IfsS3 implements Repository, S3 {
 				String[] tokens = line.split(",");
 				MoveData data = new MoveData();
 				data.setPath(tokens[1].replaceAll("\"", ""));
+				data.setFile(!data.getPath().endsWith("/"));
 				data.setSize(Long.parseLong(tokens[5].replaceAll("\"", "")));
 				data.setmTime(tokens[6].replaceAll("\"", ""));
 				data.setETag(tokens[7].replaceAll("\"", ""));
 				list.add(data);
 				if (count % 1000 == 0) {
 					logger.info("listObjects ... {}", count);
-					DBWorker dbworker = new DBWorker(isRerun, false, true, jobId, list);
-					executor.execute(dbworker);
+					executeDBWorker(executor, new DBWorker(isRerun, false, true, jobId, list), list.size());
 					list = new ArrayList<MoveData>();
 				}
 			}
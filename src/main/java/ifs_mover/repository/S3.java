@@ -16,8 +16,10 @@ import java.util.List;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AccessControlList;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyObjectResult;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartSummary;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.Tag;
 
@@ -28,10 +30,14 @@ public interface S3 {
     String startMultipart(AmazonS3 client, String bucket, String key, ObjectMetadata objectMetadata);
     String uploadPart(AmazonS3 client, String bucket, String key, String uploadId, InputStream is, int partNumber, long partSize);
     CompleteMultipartUploadResult completeMultipart(AmazonS3 client, String bucket, String key, String uploadId, List<PartETag> list);
+    List<PartSummary> listParts(AmazonS3 client, String bucket, String key, String uploadId);
+    void abortMultipart(AmazonS3 client, String bucket, String key, String uploadId);
     void setTagging(AmazonS3 client, String bucket, String key, String versionId, List<Tag> tagSet);
     void setAcl(AmazonS3 client, String bucket, String key, String versionId, AccessControlList acl);
     PutObjectResult putObject(AmazonS3 client, boolean isFile, String bucket, String key, ObjectData data, long size);
     PutObjectResult putObject(AmazonS3 client, String bucketName, String key, InputStream input, ObjectMetadata metadata);
     void deleteObject(AmazonS3 client, String bucket, String key, String versionId);
+    CopyObjectResult copyObject(AmazonS3 client, String sourceBucket, String sourceKey, String versionId, String bucket, String key);
+    PartETag copyPart(AmazonS3 client, String sourceBucket, String sourceKey, String versionId, String bucket, String key, String uploadId, int partNumber, long start, long end);
 }
 
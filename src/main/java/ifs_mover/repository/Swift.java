@@ -11,6 +11,7 @@
 package ifs_mover.repository;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -39,6 +40,7 @@ import com.amazonaws.services.s3.model.Tag;
 
 import ifs_mover.Config;
 import ifs_mover.SyncMode;
+import ifs_mover.Throttle;
 import ifs_mover.Utils;
 import ifs_mover.db.MariaDB;
 
@@ -66,6 +68,10 @@ public class Swift implements Repository {
 	private final String X_OBJECT_META_FILE = "X-Object-Meta-File";
 	private final String MTIME = "Mtime";
 	private final String SEGMENTS = "_segments";
+	private final String CONTENT_TYPE = "Content-Type";
+	private final String CONTENT_LENGTH = "Content-Length";
+	private final String ETAG = "Etag";
+	private final String LAST_MODIFIED = "Last-Modified";
 
     Swift(String jobId) {
         this.jobId = jobId;
@@ -300,6 +306,7 @@ public class Swift implements Repository {
     private List<? extends SwiftContainer> containersList(ContainerListOptions options) {
         while (true) {
             try {
+                Throttle.getInstance().request(isSource);
                 return clientV3.objectStorage().containers().list(options);
             } catch(Exception e) {
                 clientV3 = getConnection();
@@ -310,6 +317,7 @@ public class Swift implements Repository {
     private List<? extends SwiftObject> objectList(String container, ObjectListOptions options) {
         while (true) {
             try {
+                Throttle.getInstance().request(isSource);
                 return clientV3.objectStorage().objects().list(container, options);
             } catch (Exception e) {
                 clientV3 = getConnection();
@@ -320,6 +328,7 @@ public class Swift implements Repository {
     private Map<String, String> getObjectMetadata(String container, String key) {
         while (true) {
             try {
+                Throttle.getInstance().request(isSource);
                 return clientV3.objectStorage().objects().getMetadata(container, key);
             } catch(Exception e) {
                 clientV3 = getConnection();
@@ -327,14 +336,67 @@ public class Swift implements Repository {
         }
     }
 
-    private SwiftObject getObject(String container, String key) {
-        while (true) {
-            try {
-                return clientV3.objectStorage().objects().get(container, key);
-            } catch(Exception e) {
-                clientV3 = getConnection();
+    // the container listing has the size, hash, mtime and content type of an object.
+    // Only an object of 0 bytes can be a DLO manifest, it is the only one sent a HEAD for X-Object-Manifest
+    private Map<String, String> getManifestMetadata(SwiftObject obj) {
+        if (obj.isDirectory() || obj.getSizeInBytes() > 0) {
+            return null;
+        }
+        Map<String, String> meta = getObjectMetadata(obj.getContainerName(), obj.getName());
+        if (meta == null || meta.get(MULTIPART_INFO) == null) {
+            return null;
+        }
+        return meta;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String getTag(SwiftObject obj, Map<String, String> meta) {
+        JSONObject json = new JSONObject();
+        if (meta != null) {
+            for (String key : meta.keySet()) {
+                if (key.equalsIgnoreCase(MULTIPART_INFO)
+                    || key.equalsIgnoreCase(X_TIMESTAMP)
+                    || key.equalsIgnoreCase(X_OPENSTACK_REQUEST_ID)
+                    || key.equalsIgnoreCase(X_TRANS_ID)
+                    || key.equalsIgnoreCase(MTIME)
+                    || key.equalsIgnoreCase(X_OBJECT_META_FILE)) {
+                    continue;
+                }
+                json.put(key, meta.get(key));
+            }
+        } else {
+            json.put(CONTENT_TYPE, obj.getMimeType());
+            json.put(CONTENT_LENGTH, String.valueOf(obj.getSizeInBytes()));
+            json.put(ETAG, obj.getETag());
+            json.put(LAST_MODIFIED, obj.getLastModified().toString());
+        }
+        return json.toString();
+    }
+
+    // the size of the segments 00000000, 00000001 ... of a DLO, from one listing of the segment prefix
+    private long getSegmentsSize(String manifest) {
+        String[] path = manifest.split("/", 2);
+        Map<String, Long> sizes = new HashMap<String, Long>();
+        ObjectListOptions listOptions = ObjectListOptions.create().limit(OBJECT_LIST_LIMIT);
+        listOptions.startsWith(path[1]);
+        List<? extends SwiftObject> segments = null;
+        do {
+            segments = objectList(path[0], listOptions);
+            if (!segments.isEmpty()) {
+                listOptions.marker(segments.get(segments.size() - 1).getName());
+            }
+            for (SwiftObject segment : segments) {
+                sizes.put(segment.getName(), segment.getSizeInBytes());
             }
+        } while (segments.size() >= OBJECT_LIST_LIMIT);
+
+        long size = 0;
+        int i = 0;
+        Long segmentSize = null;
+        while ((segmentSize = sizes.get(path[1] + String.format("%08d", i++))) != null) {
+            size += segmentSize;
         }
+        return size;
     }
     
     private void objectList() {
@@ -390,35 +452,12 @@ public class Swift implements Repository {
                     }
                     
                     for (SwiftObject obj : objs) {
-                        meta = getObjectMetadata(obj.getContainerName(), obj.getName());
+                        meta = getManifestMetadata(obj);
+                        String multipartInfo = meta != null ? meta.get(MULTIPART_INFO) : null;
 
                         long size = obj.getSizeInBytes();
-                        JSONObject json = new JSONObject();
-                        for (String key : meta.keySet()) {
-                            if (key.equalsIgnoreCase(MULTIPART_INFO)
-                                || key.equalsIgnoreCase(X_TIMESTAMP)
-                                || key.equalsIgnoreCase(X_OPENSTACK_REQUEST_ID)
-                                || key.equalsIgnoreCase(X_TRANS_ID)
-                                || key.equalsIgnoreCase(MTIME)
-                                || key.equalsIgnoreCase(X_OBJECT_META_FILE)) {
-                                continue;
-                            }
-                            json.put(key, meta.get(key));
-                        }
-
-                        if (meta.get(MULTIPART_INFO) != null) {
-                            String[] path = meta.get(MULTIPART_INFO).split("/", 2);
-                            int i = 0;
-                            SwiftObject object = null;
-                            do {
-                                String partPath = String.format("%08d", i++);
-                                partPath = path[1] + partPath;
-                                
-                                object = getObject(path[0], partPath); 
-                                if (object != null) {
-                                    size += object.getSizeInBytes();
-                                }
-                            } while (object != null);
+                        if (multipartInfo != null) {
+                            size += getSegmentsSize(multipartInfo);
                         }
                         count++;
                         Utils.insertMoveObjectVersion(jobId, !obj.isDirectory(),  
@@ -427,8 +466,8 @@ public class Swift implements Repository {
                             container.getName() + "/" + obj.getName(), 
                             "",
                             obj.getETag(),
-                            meta.get(MULTIPART_INFO),
-                            json.toString(),
+                            multipartInfo,
+                            getTag(obj, meta),
                             false,
                             true);
                         Utils.updateJobInfo(jobId, size);
@@ -500,41 +539,18 @@ public class Swift implements Repository {
                 }
 
                 do {
-                    objectList(container.getName(), listOptions);
+                    objs = objectList(container.getName(), listOptions);
                     if (!objs.isEmpty()) {
                         listOptions.marker(objs.get(objs.size() - 1).getName());
                     }
                     
                     for (SwiftObject obj : objs) {
-                        meta = getObjectMetadata(obj.getContainerName(), obj.getName());
+                        meta = getManifestMetadata(obj);
+                        String multipartInfo = meta != null ? meta.get(MULTIPART_INFO) : null;
+
                         long size = obj.getSizeInBytes();
-    
-                        JSONObject json = new JSONObject();
-                        for (String key : meta.keySet()) {
-                            if (key.equalsIgnoreCase(MULTIPART_INFO)
-                                || key.equalsIgnoreCase(X_TIMESTAMP)
-                                || key.equalsIgnoreCase(X_OPENSTACK_REQUEST_ID)
-                                || key.equalsIgnoreCase(X_TRANS_ID)
-                                || key.equalsIgnoreCase(MTIME)
-                                || key.equalsIgnoreCase(X_OBJECT_META_FILE)) {
-                                continue;
-                            }
-                            json.put(key, meta.get(key));
-                        }
-                        
-                        if (meta.get(MULTIPART_INFO) != null) {
-                            String[] path = meta.get(MULTIPART_INFO).split("/", 2);
-                            int i = 0;
-                            SwiftObject object = null;
-                            do {
-                                String partPath = String.format("%08d", i++);
-                                partPath = path[1] + partPath;
-                                
-                                object = getObject(path[0], partPath);
-                                if (object != null) {
-                                    size += object.getSizeInBytes();
-                                }
-                            } while (object != null);
+                        if (multipartInfo != null) {
+                            size += getSegmentsSize(multipartInfo);
                         }
 
                         // Map<String, String> info = DBManager.infoExistObject(jobId, obj.getName());
@@ -546,8 +562,8 @@ public class Swift implements Repository {
                                 obj.getName(), 
                                 "",
                                 obj.getETag(),
-                                meta.get(MULTIPART_INFO),
-                                json.toString(),
+                                multipartInfo,
+                                getTag(obj, meta),
                                 false,
                                 true);
                             Utils.updateJobInfo(jobId, size);
@@ -610,10 +626,11 @@ public class Swift implements Repository {
         while (true) {
             try {
                 OSClientV3 client = OSFactory.clientFromToken(token);
+                Throttle.getInstance().request(isSource);
                 SwiftObject object = client.objectStorage().objects().get(bucket, key);
                 if (object != null) {
                     DLPayload load = object.download();
-                    data.setInputStream(load.getInputStream());
+                    data.setInputStream(Throttle.getInstance().wrap(load.getInputStream(), isSource));
                     data.setSize(object.getSizeInBytes());
                     return data;
                 } else {
@@ -635,9 +652,10 @@ public class Swift implements Repository {
         while (true) {
             try {
                 OSClientV3 client = OSFactory.clientFromToken(token);
+                Throttle.getInstance().request(isSource);
                 SwiftObject object = client.objectStorage().objects().get(bucket, key);
                 DLPayload load = object.download(options);
-                data.setInputStream(load.getInputStream());
+                data.setInputStream(Throttle.getInstance().wrap(load.getInputStream(), isSource));
                 data.setSize(object.getSizeInBytes());
                 break;
             } catch (Exception e) {
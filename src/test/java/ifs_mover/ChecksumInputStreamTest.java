@@ -0,0 +1,113 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+
+package ifs_mover;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import org.junit.jupiter.api.Test;
+
+public class ChecksumInputStreamTest {
+	private static final long CRC32_POLY = 0xedb88320L;
+	private static final long CRC32C_POLY = 0x82f63b78L;
+
+	private static byte[] randomBytes(int size) {
+		byte[] bytes = new byte[size];
+		new Random(size).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static long crc(Checksum crc, byte[] bytes, int off, int len) {
+		crc.reset();
+		crc.update(bytes, off, len);
+		return crc.getValue();
+	}
+
+	private static void readAll(ChecksumInputStream is) throws IOException {
+		byte[] buffer = new byte[1000];
+		while (is.read(buffer, 0, buffer.length) >= 0) {
+		}
+	}
+
+	@Test
+	public void combineCrc32() {
+		byte[] bytes = randomBytes(10000);
+		CRC32 crc = new CRC32();
+		for (int split : new int[] {0, 1, 4999, 9999, 10000}) {
+			long crc1 = crc(crc, bytes, 0, split);
+			long crc2 = crc(crc, bytes, split, bytes.length - split);
+			assertEquals(crc(crc, bytes, 0, bytes.length), ChecksumInputStream.combineCrc(crc1, crc2, bytes.length - split, CRC32_POLY));
+		}
+	}
+
+	@Test
+	public void combineCrc32c() {
+		// the combine only needs the polynomial, the Java 8 fallback has no CRC32C to check against
+		Checksum crc = ChecksumInputStream.newCrc();
+		long poly = crc instanceof CRC32 ? CRC32_POLY : CRC32C_POLY;
+		byte[] bytes = randomBytes(8192);
+		long crc1 = crc(crc, bytes, 0, 3000);
+		long crc2 = crc(crc, bytes, 3000, 5192);
+		assertEquals(crc(crc, bytes, 0, bytes.length), ChecksumInputStream.combineCrc(crc1, crc2, 5192, poly));
+	}
+
+	@Test
+	public void checksumOfReadBytes() throws Exception {
+		byte[] bytes = randomBytes(5000);
+		ChecksumInputStream is = new ChecksumInputStream(new ByteArrayInputStream(bytes), true);
+		readAll(is);
+
+		assertArrayEquals(MessageDigest.getInstance("MD5").digest(bytes), is.getMd5());
+		assertTrue(is.isCrc());
+		assertEquals(crc(ChecksumInputStream.newCrc(), bytes, 0, bytes.length), is.getCrc());
+	}
+
+	@Test
+	public void resetReadsTheBytesAgainWithoutCountingThemTwice() throws Exception {
+		byte[] bytes = randomBytes(5000);
+		ChecksumInputStream is = new ChecksumInputStream(new ByteArrayInputStream(bytes), true);
+		assertTrue(is.markSupported());
+
+		byte[] buffer = new byte[1200];
+		is.read(buffer, 0, buffer.length);
+		is.mark(bytes.length);
+		is.read(buffer, 0, buffer.length);
+		is.read(buffer, 0, buffer.length);
+		is.reset();
+		readAll(is);
+
+		assertArrayEquals(MessageDigest.getInstance("MD5").digest(bytes), is.getMd5());
+		assertEquals(crc(ChecksumInputStream.newCrc(), bytes, 0, bytes.length), is.getCrc());
+	}
+
+	@Test
+	public void resetToTheStart() throws Exception {
+		byte[] bytes = randomBytes(3000);
+		ChecksumInputStream is = new ChecksumInputStream(new ByteArrayInputStream(bytes), true);
+		is.mark(bytes.length);
+		readAll(is);
+		is.reset();
+		readAll(is);
+
+		assertArrayEquals(MessageDigest.getInstance("MD5").digest(bytes), is.getMd5());
+		assertEquals(crc(ChecksumInputStream.newCrc(), bytes, 0, bytes.length), is.getCrc());
+	}
+}
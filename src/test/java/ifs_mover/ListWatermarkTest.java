@@ -0,0 +1,66 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+
+package ifs_mover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// ListWatermark is static, every test ends the inserts it begins
+public class ListWatermarkTest {
+	@Test
+	public void rowsAboveARunningInsertAreHeldBack() {
+		ListWatermark.get(1000);
+		long mark = ListWatermark.begin();
+		assertTrue(mark >= 1000);
+
+		assertEquals(mark, ListWatermark.get(mark + 50));
+		ListWatermark.end(mark);
+		assertEquals(mark + 50, ListWatermark.get(mark + 50));
+	}
+
+	@Test
+	public void theLowestMarkWins() {
+		long first = ListWatermark.begin();
+		ListWatermark.get(first + 100);
+		long second = ListWatermark.begin();
+		assertEquals(first + 100, second);
+
+		assertEquals(first, ListWatermark.get(second + 100));
+		ListWatermark.end(first);
+		assertEquals(second, ListWatermark.get(second + 100));
+		ListWatermark.end(second);
+		assertEquals(second + 100, ListWatermark.get(second + 100));
+	}
+
+	@Test
+	public void insertsWithTheSameMark() {
+		long mark = ListWatermark.begin();
+		assertEquals(mark, ListWatermark.begin());
+
+		ListWatermark.end(mark);
+		assertEquals(mark, ListWatermark.get(mark + 10));
+		ListWatermark.end(mark);
+		assertEquals(mark + 10, ListWatermark.get(mark + 10));
+	}
+
+	@Test
+	public void unknownMarkIsIgnored() {
+		ListWatermark.end(-1);
+		long mark = ListWatermark.begin();
+		ListWatermark.end(-1);
+		assertEquals(mark, ListWatermark.get(mark + 1));
+		ListWatermark.end(mark);
+	}
+}
@@ -0,0 +1,99 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+
+package ifs_mover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ifs_mover.MoveRetryPolicy.ErrorClass;
+
+public class MoveRetryPolicyTest {
+	private static final long BASE_DELAY = 100;
+	private static final long MAX_DELAY = 1000;
+	// MoveRetryPolicy.MIN_BUDGET
+	private static final int MIN_BUDGET = 100;
+
+	private MoveRetryPolicy policy;
+
+	@BeforeEach
+	public void setUp() {
+		policy = new BackoffRetryPolicy();
+		policy.init(3, 5, BASE_DELAY, MAX_DELAY, 10);
+	}
+
+	@Test
+	public void fullJitterStaysUnderTheCeiling() {
+		for (int attempt = 0; attempt < 40; attempt++) {
+			long ceiling = Math.min(MAX_DELAY, BASE_DELAY << Math.min(attempt, 30));
+			for (int i = 0; i < 100; i++) {
+				long delay = MoveRetryPolicy.fullJitter(BASE_DELAY, MAX_DELAY, attempt);
+				assertTrue(delay >= 0 && delay <= ceiling, "attempt " + attempt + " : " + delay);
+			}
+		}
+	}
+
+	@Test
+	public void fullJitterWithoutDelay() {
+		assertEquals(0, MoveRetryPolicy.fullJitter(0, 0, 3));
+		assertEquals(0, MoveRetryPolicy.fullJitter(BASE_DELAY, 0, 3));
+	}
+
+	@Test
+	public void retriesPerErrorClass() {
+		for (int attempt = 0; attempt < 3; attempt++) {
+			assertTrue(policy.nextDelay(ErrorClass.TRANSIENT, attempt) >= 0);
+		}
+		assertEquals(-1, policy.nextDelay(ErrorClass.TRANSIENT, 3));
+		for (int attempt = 0; attempt < 5; attempt++) {
+			assertTrue(policy.nextDelay(ErrorClass.THROTTLE, attempt) >= 0);
+		}
+		assertEquals(-1, policy.nextDelay(ErrorClass.THROTTLE, 5));
+		assertEquals(-1, policy.nextDelay(ErrorClass.PERMANENT, 0));
+
+		assertEquals(3, policy.getRetryCount(ErrorClass.TRANSIENT));
+		assertEquals(5, policy.getRetryCount(ErrorClass.THROTTLE));
+		assertEquals(1, policy.getFailureCount(ErrorClass.TRANSIENT));
+		assertEquals(1, policy.getFailureCount(ErrorClass.THROTTLE));
+		assertEquals(1, policy.getFailureCount(ErrorClass.PERMANENT));
+	}
+
+	@Test
+	public void budgetLimitsTransientRetries() {
+		for (int i = 0; i < MIN_BUDGET; i++) {
+			assertTrue(policy.nextDelay(ErrorClass.TRANSIENT, 0) >= 0);
+		}
+		assertEquals(-1, policy.nextDelay(ErrorClass.TRANSIENT, 0));
+		// throttles back off, they are not limited by the budget
+		assertTrue(policy.nextDelay(ErrorClass.THROTTLE, 0) >= 0);
+
+		// 10% of 1000 attempts
+		for (int i = 0; i < 1000; i++) {
+			policy.onAttempt();
+		}
+		for (int i = 0; i < 100; i++) {
+			assertTrue(policy.nextDelay(ErrorClass.TRANSIENT, 0) >= 0);
+		}
+		assertEquals(-1, policy.nextDelay(ErrorClass.TRANSIENT, 0));
+	}
+
+	@Test
+	public void noBudget() {
+		policy.init(3, 5, BASE_DELAY, MAX_DELAY, 0);
+		for (int i = 0; i < MIN_BUDGET * 2; i++) {
+			assertTrue(policy.nextDelay(ErrorClass.TRANSIENT, 0) >= 0);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+
+package ifs_mover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.zip.Checksum;
+
+import org.junit.jupiter.api.Test;
+
+public class MultipartChecksumTest {
+	private static final byte[][] PARTS = {"first part".getBytes(), "second part".getBytes(), "third".getBytes()};
+
+	private static ChecksumInputStream read(byte[] part) throws IOException {
+		ChecksumInputStream is = new ChecksumInputStream(new ByteArrayInputStream(part), true);
+		byte[] buffer = new byte[64];
+		while (is.read(buffer, 0, buffer.length) >= 0) {
+		}
+		return is;
+	}
+
+	private static String expectedETag() throws Exception {
+		MessageDigest md5 = MessageDigest.getInstance("MD5");
+		for (byte[] part : PARTS) {
+			md5.update(MessageDigest.getInstance("MD5").digest(part));
+		}
+		return ChecksumInputStream.toHex(md5.digest()) + "-" + PARTS.length;
+	}
+
+	@Test
+	public void compositeETagAndCrc() throws Exception {
+		MultipartChecksum checksum = new MultipartChecksum();
+		Checksum crcOfCrcs = ChecksumInputStream.newCrc();
+		// parts may finish in any order
+		for (int i = PARTS.length - 1; i >= 0; i--) {
+			checksum.addPart(i + 1, read(PARTS[i]));
+		}
+		for (byte[] part : PARTS) {
+			Checksum crc = ChecksumInputStream.newCrc();
+			crc.update(part, 0, part.length);
+			crcOfCrcs.update(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array(), 0, 4);
+		}
+
+		assertEquals(PARTS.length, checksum.getPartCount());
+		assertEquals(expectedETag(), checksum.getETag());
+		assertEquals(String.format("%08x-%d", crcOfCrcs.getValue(), PARTS.length), checksum.getCrc());
+	}
+
+	@Test
+	public void partFromAnEarlierAttempt() throws Exception {
+		MultipartChecksum checksum = new MultipartChecksum();
+		checksum.addPart(1, ChecksumInputStream.toHex(MessageDigest.getInstance("MD5").digest(PARTS[0])));
+		checksum.addPart(2, read(PARTS[1]));
+		checksum.addPart(3, read(PARTS[2]));
+
+		assertEquals(expectedETag(), checksum.getETag());
+		// the CRC of the earlier part is unknown
+		assertNull(checksum.getCrc());
+	}
+
+	@Test
+	public void isMd5() {
+		assertTrue(MultipartChecksum.isMd5("0123456789abcdef0123456789ABCDEF"));
+		assertFalse(MultipartChecksum.isMd5("0123456789abcdef0123456789abcdef-2"));
+		assertFalse(MultipartChecksum.isMd5("0123456789abcdef"));
+		assertFalse(MultipartChecksum.isMd5(null));
+	}
+}
@@ -0,0 +1,69 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+
+package ifs_mover;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class RangedGetPlannerTest {
+	private static final long MB = 1024 * 1024;
+
+	@Test
+	public void splitsOnlyBetweenMinAndMultipartSize() {
+		RangedGetPlanner planner = new RangedGetPlanner(64 * MB, 256 * MB, 8);
+		assertFalse(planner.isSplit(64 * MB - 1));
+		assertTrue(planner.isSplit(64 * MB));
+		assertTrue(planner.isSplit(256 * MB - 1));
+		assertFalse(planner.isSplit(256 * MB));
+
+		// a split needs two parts of at least 8MB
+		RangedGetPlanner small = new RangedGetPlanner(0, 256 * MB, 8);
+		assertFalse(small.isSplit(16 * MB - 1));
+		assertTrue(small.isSplit(16 * MB));
+	}
+
+	@Test
+	public void streamsFollowTheResponseTime() {
+		RangedGetPlanner planner = new RangedGetPlanner(64 * MB, 256 * MB, 8);
+		// nothing measured yet
+		assertEquals(0, planner.getRtt());
+		assertEquals(2, planner.getStreams());
+
+		planner.onResponse(50);
+		assertEquals(50, planner.getRtt());
+		assertEquals(6, planner.getStreams());
+
+		// moving average
+		planner.onResponse(100);
+		assertEquals(60, planner.getRtt());
+		assertEquals(7, planner.getStreams());
+
+		planner.onResponse(1000);
+		assertEquals(8, planner.getStreams());
+	}
+
+	@Test
+	public void splitSize() {
+		RangedGetPlanner planner = new RangedGetPlanner(64 * MB, 256 * MB, 4);
+		planner.onResponse(100);
+		assertEquals(4, planner.getStreams());
+		assertEquals(25 * MB, planner.getSplitSize(100 * MB));
+		// rounded up to 1MB
+		assertEquals(26 * MB, planner.getSplitSize(100 * MB + 1));
+		// never below 8MB
+		assertEquals(8 * MB, planner.getSplitSize(20 * MB));
+	}
+}
@@ -0,0 +1,59 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+
+package ifs_mover;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ThrottleTest {
+	@Test
+	public void parseSchedule() {
+		assertArrayEquals(new int[] {9 * 60, 18 * 60 + 30}, Throttle.parseSchedule("09:00-18:30"));
+		assertArrayEquals(new int[] {22 * 60, 6 * 60}, Throttle.parseSchedule(" 22:00 - 06:00 "));
+		// hours only
+		assertArrayEquals(new int[] {9 * 60, 18 * 60}, Throttle.parseSchedule("9-18"));
+	}
+
+	@Test
+	public void noOrInvalidSchedule() {
+		assertNull(Throttle.parseSchedule(null));
+		assertNull(Throttle.parseSchedule(" "));
+		assertNull(Throttle.parseSchedule("09:00"));
+		assertNull(Throttle.parseSchedule("nine-six"));
+	}
+
+	@Test
+	public void inSchedule() {
+		int start = 9 * 60;
+		int end = 18 * 60;
+		assertFalse(Throttle.isInSchedule(start, end, start - 1));
+		assertTrue(Throttle.isInSchedule(start, end, start));
+		assertTrue(Throttle.isInSchedule(start, end, end - 1));
+		assertFalse(Throttle.isInSchedule(start, end, end));
+	}
+
+	@Test
+	public void inScheduleOverMidnight() {
+		int start = 22 * 60;
+		int end = 6 * 60;
+		assertTrue(Throttle.isInSchedule(start, end, 23 * 60));
+		assertTrue(Throttle.isInSchedule(start, end, 0));
+		assertTrue(Throttle.isInSchedule(start, end, end - 1));
+		assertFalse(Throttle.isInSchedule(start, end, end));
+		assertFalse(Throttle.isInSchedule(start, end, 12 * 60));
+	}
+}
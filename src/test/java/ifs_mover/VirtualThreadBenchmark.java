@@ -0,0 +1,110 @@
+/*
+* Copyright (c) 2021 PSPACE, inc. KSAN Development Team ksan@pspace.co.kr
+* ifsmover is a suite of free software: you can redistribute it and/or modify it under the terms of
+* the GNU General Public License as published by the Free Software Foundation, either version
+* 3 of the License.  See LICENSE for details
+*
+* 본 프로그램 및 관련 소스코드, 문서 등 모든 자료는 있는 그대로 제공이 됩니다.
+* KSAN 프로젝트의 개발자 및 개발사는 이 프로그램을 사용한 결과에 따른 어떠한 책임도 지지 않습니다.
+* KSAN 개발팀은 사전 공지, 허락, 동의 없이 KSAN 개발에 관련된 모든 결과물에 대한 LICENSE 방식을 변경 할 권리가 있습니다.
+*/
+
+
+package ifs_mover;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Compares the small object fan-out on platform threads and on virtual threads with simulated blocking requests.
+// java -cp <classes>:<test-classes> ifs_mover.VirtualThreadBenchmark [objects] [latency ms] [threads] [small_object_threads]
+// Each mover thread moves its share of the objects with up to small_object_threads at once, the same way
+// ObjectMover.Mover does. The virtual run needs Java 21 or later.
+public class VirtualThreadBenchmark {
+	public static void main(String[] args) throws Exception {
+		int objects = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		long latency = args.length > 1 ? Long.parseLong(args[1]) : 20;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+		int smallObjectThreads = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+		System.out.printf("objects=%d, latency=%dms, threads=%d, small_object_threads=%d%n", objects, latency, threads, smallObjectThreads);
+		report("platform, one object per thread", objects, run(objects, latency, threads, 0, false));
+		report("platform, small_object_threads", objects, run(objects, latency, threads, smallObjectThreads, false));
+		try {
+			report("virtual, small_object_threads", objects, run(objects, latency, threads, smallObjectThreads, true));
+		} catch (Exception e) {
+			System.out.printf("virtual : not available on Java %s (%s)%n", System.getProperty("java.version"), e);
+		}
+	}
+
+	private static void report(String name, int objects, long ms) {
+		System.out.printf("%-35s : %6dms, %8.1f objects/s%n", name, ms, objects * 1000.0 / Math.max(1, ms));
+	}
+
+	private static long run(final int objects, final long latency, int threads, final int smallObjectThreads, final boolean isVirtual) throws Exception {
+		final ExecutorService fanOut;
+		if (smallObjectThreads == 0) {
+			fanOut = null;
+		} else if (isVirtual) {
+			fanOut = VirtualThreads.newThreadPerTaskExecutor(VirtualThreads.newThreadFactory());
+		} else {
+			fanOut = Executors.newCachedThreadPool();
+		}
+
+		ExecutorService movers = Executors.newFixedThreadPool(threads);
+		final CountDownLatch done = new CountDownLatch(objects);
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < threads; i++) {
+			final int share = objects / threads + (i < objects % threads ? 1 : 0);
+			movers.execute(new Runnable() {
+				@Override
+				public void run() {
+					Semaphore permits = new Semaphore(Math.max(1, smallObjectThreads));
+					try {
+						for (int n = 0; n < share; n++) {
+							if (fanOut == null) {
+								move(latency, done);
+								continue;
+							}
+							permits.acquire();
+							final Semaphore held = permits;
+							fanOut.execute(new Runnable() {
+								@Override
+								public void run() {
+									try {
+										move(latency, done);
+									} finally {
+										held.release();
+									}
+								}
+							});
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+		done.await();
+		long elapsed = System.currentTimeMillis() - start;
+		movers.shutdown();
+		if (fanOut != null) {
+			fanOut.shutdown();
+			fanOut.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		return elapsed;
+	}
+
+	// stands for the GET and PUT of one small object
+	private static void move(long latency, CountDownLatch done) {
+		try {
+			Thread.sleep(latency);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			done.countDown();
+		}
+	}
+}